@@ -0,0 +1,58 @@
+package org.junit.contrib.java.lang.system;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a test that sets a number of environment variables. The time
+ * grows with the number of variables because of the work that is done by
+ * every call of {@link EnvironmentVariables#set(String, String)}.
+ *
+ * <p>With Java 9 or later the benchmark needs the JVM arguments that are
+ * described by {@link RuleOverheadBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnvironmentVariablesBenchmark {
+	@Param({ "1", "10", "100" })
+	public int numberOfVariables;
+
+	private String[] names;
+
+	@Setup
+	public void createNames() {
+		names = new String[numberOfVariables];
+		for (int i = 0; i < names.length; ++i)
+			names[i] = "SYSTEM_RULES_BENCHMARK_" + i;
+	}
+
+	@Benchmark
+	public void setVariablesDuringTest() throws Throwable {
+		final EnvironmentVariables environmentVariables
+			= new EnvironmentVariables();
+		environmentVariables.apply(new Statement() {
+			@Override
+			public void evaluate() {
+				for (String name : names)
+					environmentVariables.set(name, "value");
+			}
+		}, Description.EMPTY).evaluate();
+	}
+}
@@ -0,0 +1,91 @@
+package org.junit.contrib.java.lang.system;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time that the rules need for setting up and restoring the
+ * state of the {@code System} around an empty test. A new rule is created
+ * for every invocation like JUnit does it for every test.
+ *
+ * <p>{@code EnvironmentVariables} modifies internals of the JDK. With Java 9
+ * or later the benchmarks need the JVM arguments
+ * {@code --add-opens java.base/java.util=ALL-UNNAMED} and
+ * {@code --add-opens java.base/java.lang=ALL-UNNAMED}. The
+ * {@code benchmarks} profile of the POM provides them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleOverheadBenchmark {
+	private static final Statement EMPTY_TEST = new Statement() {
+		@Override
+		public void evaluate() {
+		}
+	};
+
+	@Benchmark
+	public void restoreSystemProperties() throws Throwable {
+		evaluateEmptyTest(new RestoreSystemProperties());
+	}
+
+	@Benchmark
+	public void provideSystemProperty() throws Throwable {
+		evaluateEmptyTest(
+			new ProvideSystemProperty("system.rules.benchmark", "value"));
+	}
+
+	@Benchmark
+	public void clearSystemProperties() throws Throwable {
+		evaluateEmptyTest(new ClearSystemProperties("system.rules.benchmark"));
+	}
+
+	@Benchmark
+	public void environmentVariables() throws Throwable {
+		evaluateEmptyTest(new EnvironmentVariables()
+			.set("SYSTEM_RULES_BENCHMARK", "value"));
+	}
+
+	@Benchmark
+	public void setEnvironmentVariablesDuringTest() throws Throwable {
+		final EnvironmentVariables environmentVariables
+			= new EnvironmentVariables();
+		environmentVariables.apply(new Statement() {
+			@Override
+			public void evaluate() {
+				for (int i = 0; i < 10; ++i)
+					environmentVariables.set("SYSTEM_RULES_BENCHMARK_" + i,
+						"value");
+			}
+		}, Description.EMPTY).evaluate();
+	}
+
+	@Benchmark
+	public void expectedSystemExit() throws Throwable {
+		evaluateEmptyTest(ExpectedSystemExit.none());
+	}
+
+	@Benchmark
+	public void systemOutRule() throws Throwable {
+		evaluateEmptyTest(new SystemOutRule().enableLog());
+	}
+
+	private void evaluateEmptyTest(TestRule rule) throws Throwable {
+		rule.apply(EMPTY_TEST, Description.EMPTY).evaluate();
+	}
+}
@@ -0,0 +1,80 @@
+package org.junit.contrib.java.lang.system;
+
+import static java.util.Arrays.fill;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how fast text is captured by {@link SystemOutRule}.
+ * {@link #writeByteByByte()} is the baseline for writing the same bytes
+ * with a single call ({@link #writeChunk()}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SystemOutRuleBenchmark {
+	private static final int MAX_LOG_SIZE = 1024 * 1024;
+
+	@Param({"16", "4096"})
+	public int size;
+
+	@Param({"unbuffered", "buffered"})
+	public String mode;
+
+	private PrintStream capturingStream;
+	private byte[] bytes;
+	private String text;
+
+	@Setup
+	public void captureSystemOut() throws Throwable {
+		bytes = new byte[size];
+		fill(bytes, (byte) 'x');
+		text = new String(bytes, "US-ASCII");
+		SystemOutRule systemOutRule = new SystemOutRule()
+			.enableLog(MAX_LOG_SIZE)
+			.mute();
+		if (mode.equals("buffered"))
+			systemOutRule.enableBuffering();
+		//the stream still writes to the log after the statement finished
+		systemOutRule.apply(new Statement() {
+			@Override
+			public void evaluate() {
+				capturingStream = System.out;
+			}
+		}, Description.EMPTY).evaluate();
+	}
+
+	@Benchmark
+	public void writeChunk() {
+		capturingStream.write(bytes, 0, bytes.length);
+	}
+
+	@Benchmark
+	public void writeByteByByte() {
+		for (byte b: bytes)
+			capturingStream.write(b);
+	}
+
+	@Benchmark
+	public void println() {
+		capturingStream.println(text);
+	}
+}
@@ -0,0 +1,89 @@
+package org.junit.contrib.java.lang.system;
+
+import static java.util.Arrays.fill;
+import static org.junit.contrib.java.lang.system.TextFromStandardInputStream.emptyStandardInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how fast the text that is provided by
+ * {@link TextFromStandardInputStream} is read from {@code System.in}. Every
+ * invocation reads the whole text.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextFromStandardInputStreamBenchmark {
+	private static final int LINE_LENGTH = 80;
+
+	@Param({"1024", "1048576"})
+	public int size;
+
+	@Param({"false", "true"})
+	public boolean bulkReads;
+
+	private final TextFromStandardInputStream systemInMock
+		= emptyStandardInputStream();
+	private final byte[] buffer = new byte[8192];
+	private InputStream systemIn;
+	private String[] lines;
+
+	@Setup
+	public void replaceSystemIn() throws Throwable {
+		char[] line = new char[LINE_LENGTH];
+		fill(line, 'x');
+		lines = new String[size / (LINE_LENGTH + 1)];
+		fill(lines, new String(line));
+		if (bulkReads)
+			systemInMock.enableBulkReads();
+		//the mock still provides text after the statement finished
+		systemInMock.apply(new Statement() {
+			@Override
+			public void evaluate() {
+				systemIn = System.in;
+			}
+		}, Description.EMPTY).evaluate();
+	}
+
+	@Setup(Level.Invocation)
+	public void provideText() {
+		systemInMock.provideLines(lines);
+	}
+
+	@Benchmark
+	public int readSingleBytes() throws IOException {
+		int numberOfBytes = 0;
+		while (systemIn.read() != -1)
+			++numberOfBytes;
+		return numberOfBytes;
+	}
+
+	@Benchmark
+	public int readBuffer() throws IOException {
+		int numberOfBytes = 0;
+		int len;
+		while ((len = systemIn.read(buffer, 0, buffer.length)) != -1)
+			numberOfBytes += len;
+		return numberOfBytes;
+	}
+}
@@ -1,7 +1,11 @@
 package org.junit.contrib.java.lang.system;
 
+import static org.junit.contrib.java.lang.system.internal.SystemPropertiesRouter.createThreadScopedStatement;
+
 import org.junit.contrib.java.lang.system.internal.RestoreSpecificSystemProperties;
 import org.junit.rules.ExternalResource;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
 
 /**
  * The {@code ClearSystemProperties} rule clears a set of system
@@ -45,10 +49,23 @@ import org.junit.rules.ExternalResource;
  *   System.clearProperty("YourProperty");
  *   ...
  * }</pre>
+ * <h2>Parallel Tests</h2>
+ * <p>By default {@code ClearSystemProperties} modifies the system properties
+ * of the whole JVM. Therefore tests that use it cannot run in parallel.
+ * {@link #scopeToTestThread()} restricts the rule to the thread that runs
+ * the test and to the threads that are created by this thread while the
+ * test is running. All tests that are running in parallel and modify system
+ * properties must use {@code scopeToTestThread()}.
+ * <pre>
+ * &#064;Rule
+ * public final ClearSystemProperties clearSystemProperties
+ *   = new ClearSystemProperties("YourProperty").scopeToTestThread();
+ * </pre>
  */
 public class ClearSystemProperties extends ExternalResource {
 	private final RestoreSpecificSystemProperties restoreSystemProperty = new RestoreSpecificSystemProperties();
 	private final String[] properties;
+	private boolean scopedToTestThread = false;
 
 	/**
 	 * Creates a {@code ClearSystemProperties} rule that clears the specified
@@ -61,6 +78,25 @@ public class ClearSystemProperties extends ExternalResource {
 		this.properties = properties;
 	}
 
+	/**
+	 * Restrict the rule to the thread that runs the test and to the threads
+	 * that are created by it while the test is running. These threads get
+	 * their own copy of the system properties without the cleared properties.
+	 * Other threads are not affected by the rule. This allows to run tests
+	 * with {@code ClearSystemProperties} in parallel.
+	 *
+	 * <p>Threads that have been created before the test started (e.g. the
+	 * threads of a thread pool) are not affected by the rule even if they
+	 * are executing tasks of the test.
+	 *
+	 * @return the rule itself.
+	 * @since 1.19.0
+	 */
+	public ClearSystemProperties scopeToTestThread() {
+		scopedToTestThread = true;
+		return this;
+	}
+
 	/**
 	 * Clears the property and restores the value of the property at the point
 	 * of clearing it.
@@ -96,6 +132,14 @@ public class ClearSystemProperties extends ExternalResource {
 		System.clearProperty(property);
 	}
 
+	@Override
+	public Statement apply(Statement base, Description description) {
+		Statement statement = super.apply(base, description);
+		return scopedToTestThread
+			? createThreadScopedStatement(statement)
+			: statement;
+	}
+
 	@Override
 	protected void before() throws Throwable {
 		clearProperties();
@@ -4,12 +4,24 @@ import org.junit.rules.TestRule;
 import org.junit.runner.Description;
 import org.junit.runners.model.Statement;
 
-import java.lang.reflect.Field;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
-import static java.lang.Class.forName;
+import org.junit.contrib.java.lang.system.internal.CopyOnWriteMap;
+import org.junit.contrib.java.lang.system.internal.EnvFileParser;
+
+import static java.lang.String.CASE_INSENSITIVE_ORDER;
 import static java.lang.System.getenv;
+import static org.junit.contrib.java.lang.system.internal.EnvironmentVariableMaps.getEditableMapOfVariables;
+import static org.junit.contrib.java.lang.system.internal.EnvironmentVariableMaps.getTheCaseInsensitiveEnvironment;
+import static org.junit.contrib.java.lang.system.internal.EnvironmentVariablesRouter.copyVariablesOfCurrentThread;
+import static org.junit.contrib.java.lang.system.internal.EnvironmentVariablesRouter.createThreadScopedStatement;
 
 /**
  * The {@code EnvironmentVariables} rule allows you to set environment variables
@@ -42,13 +54,126 @@ import static java.lang.System.getenv;
  * </pre>
  * <p>You can ensure that some environment variables are not set by calling
  * {@link #clear(String...)}.
+ * <p>Many variables can be provided by a {@code .env} file. The file can be
+ * from the file system or the class path.
+ * <pre>
+ * &#064;Rule
+ * public final EnvironmentVariables environmentVariables
+ *   = EnvironmentVariables.fromFile("/home/myself/example.env");
+ *
+ * &#064;Rule
+ * public final EnvironmentVariables environmentVariables
+ *   = EnvironmentVariables.fromResource("example.env");
+ * </pre>
+ * <p>After the test the rule restores the variables that have been set or
+ * cleared by the rule. Call {@link #restoreAllVariables()} if the test
+ * modifies the environment variables by other means, too.
+ * <p>By default the rule modifies the environment variables of the whole
+ * JVM. Therefore tests that use it cannot run in parallel.
+ * {@link #scopeToTestThread()} restricts the rule to the thread that runs
+ * the test and to the threads that are created by this thread while the
+ * test is running. All tests that are running in parallel and modify
+ * environment variables must use {@code scopeToTestThread()}.
+ * <pre>
+ * &#064;Rule
+ * public final EnvironmentVariables environmentVariables
+ *   = new EnvironmentVariables().scopeToTestThread();
+ * </pre>
+ * <h2>Child Processes</h2>
+ * <p>A child process gets the variables of
+ * {@link ProcessBuilder#environment()}. This map is a copy of the
+ * variables that is created when {@code environment()} is called for the
+ * first time. During the test it contains the variables of the rule. A
+ * {@code ProcessBuilder} whose {@code environment()} has never been
+ * called starts the child process with the environment of the operating
+ * system, which cannot be changed by the rule. The variables of a rule
+ * that is scoped to the test thread are not part of
+ * {@code ProcessBuilder.environment()}. {@link #applyTo(ProcessBuilder)}
+ * adds the variables of the rule to a {@code ProcessBuilder} in both
+ * cases.
+ * <pre>
+ * Process process = environmentVariables.applyTo(
+ *   new ProcessBuilder("env")).start();
+ * </pre>
  * <p><b>Warning:</b> This rule uses reflection for modifying internals of the
  * environment variables map. It fails if your {@code SecurityManager} forbids
  * such modifications.
  */
 public class EnvironmentVariables implements TestRule {
-	private final Map<String, String> buffer = new HashMap<String, String>();
+	private final Map<String, String> buffer
+		= new LinkedHashMap<String, String>();
+	private final Map<String, String> originalValuesOfEditableMap
+		= new HashMap<String, String>();
+	private final Map<String, String> originalValuesOfCaseInsensitiveMap
+		= new TreeMap<String, String>(CASE_INSENSITIVE_ORDER);
 	private boolean statementIsExecuting = false;
+	private boolean restoreAllVariables = false;
+	private boolean scopedToTestThread = false;
+	private CopyOnWriteMap<String, String> variablesOfTestThread;
+
+	/**
+	 * Creates an {@code EnvironmentVariables} rule that sets the variables
+	 * of a {@code .env} file. Every line of the file is an assignment
+	 * {@code NAME=value}, a comment that starts with {@code #} or an empty
+	 * line. Assignments may start with {@code export} and values may be
+	 * quoted. The file is read with the encoding UTF-8.
+	 *
+	 * @param name the name of the file.
+	 * @return the new rule.
+	 * @throws IllegalArgumentException if the file cannot be read or parsed.
+	 * @since 1.19.0
+	 */
+	public static EnvironmentVariables fromFile(String name) {
+		try {
+			return fromInputStream(new FileInputStream(name));
+		} catch (IOException e) {
+			throw new IllegalArgumentException(
+				"Cannot create EnvironmentVariables rule because file \""
+					+ name + "\" cannot be read.",
+				e);
+		}
+	}
+
+	/**
+	 * Creates an {@code EnvironmentVariables} rule that sets the variables
+	 * of a {@code .env} resource. The resource is found by
+	 * {@link Class#getResourceAsStream(String)} of
+	 * {@code EnvironmentVariables}. Its format is described by
+	 * {@link #fromFile(String)}.
+	 *
+	 * @param name the name of the resource.
+	 * @return the new rule.
+	 * @throws IllegalArgumentException if the resource does not exist or if
+	 * it cannot be read or parsed.
+	 * @since 1.19.0
+	 */
+	public static EnvironmentVariables fromResource(String name) {
+		InputStream is = EnvironmentVariables.class.getResourceAsStream(name);
+		if (is == null)
+			throw new IllegalArgumentException(
+				"Cannot create EnvironmentVariables rule because resource \""
+					+ name + "\" does not exist.");
+		try {
+			return fromInputStream(is);
+		} catch (IOException e) {
+			throw new IllegalArgumentException(
+				"Cannot create EnvironmentVariables rule because resource \""
+					+ name + "\" cannot be read.",
+				e);
+		}
+	}
+
+	private static EnvironmentVariables fromInputStream(InputStream is)
+			throws IOException {
+		try {
+			EnvironmentVariables rule = new EnvironmentVariables();
+			rule.buffer.putAll(
+				EnvFileParser.parse(new InputStreamReader(is, "UTF-8")));
+			return rule;
+		} finally {
+			is.close();
+		}
+	}
 
 	/**
 	 * Set the value of an environment variable.
@@ -77,17 +202,98 @@ public class EnvironmentVariables implements TestRule {
 		return this;
 	}
 
+	/**
+	 * Restore all environment variables after the test instead of only the
+	 * variables that have been set or cleared by the rule. This takes a
+	 * snapshot of all variables before the test. It is only needed if the
+	 * test modifies environment variables by other means than the rule.
+	 *
+	 * @return the rule itself.
+	 * @since 1.19.0
+	 */
+	public EnvironmentVariables restoreAllVariables() {
+		restoreAllVariables = true;
+		return this;
+	}
+
+	/**
+	 * Restrict the rule to the thread that runs the test and to the threads
+	 * that are created by it while the test is running. These threads get
+	 * their own copy of the environment variables that is returned by
+	 * {@code System.getenv()} and {@code System.getenv(String)}. Other
+	 * threads are not affected by the rule. This allows to run tests with
+	 * {@code EnvironmentVariables} in parallel.
+	 *
+	 * <p>Threads that have been created before the test started (e.g. the
+	 * threads of a thread pool) are not affected by the rule even if they
+	 * are executing tasks of the test.
+	 *
+	 * <p>This mode is not available on Windows, because
+	 * {@code System.getenv(String)} uses a map that cannot be replaced
+	 * there.
+	 *
+	 * @return the rule itself.
+	 * @since 1.19.0
+	 */
+	public EnvironmentVariables scopeToTestThread() {
+		scopedToTestThread = true;
+		return this;
+	}
+
+	/**
+	 * Applies the variables that have been set or cleared by the rule to
+	 * the {@link ProcessBuilder#environment() environment} of a
+	 * {@code ProcessBuilder}. Other variables of the environment are not
+	 * touched. Afterwards the process builder starts processes with the
+	 * variables that the test sees, even if the rule is scoped to the test
+	 * thread or if {@code environment()} has been called before the
+	 * variables have been set.
+	 *
+	 * @param processBuilder the {@code ProcessBuilder} that is modified.
+	 * @return the {@code ProcessBuilder}.
+	 * @since 1.19.0
+	 */
+	public ProcessBuilder applyTo(ProcessBuilder processBuilder) {
+		Map<String, String> environment = processBuilder.environment();
+		if (variablesOfTestThread != null)
+			variablesOfTestThread.applyChangesTo(environment);
+		else {
+			Map<String, String> editableMap = getEditableMapOfVariables();
+			for (String name: originalValuesOfEditableMap.keySet())
+				set(environment, name, editableMap.get(name));
+		}
+		return processBuilder;
+	}
+
 	private void writeVariableToEnvMap(String name, String value) {
-		set(getEditableMapOfVariables(), name, value);
-		set(getTheCaseInsensitiveEnvironment(), name, value);
+		if (variablesOfTestThread != null)
+			set(variablesOfTestThread, name, value);
+		else
+			writeVariableToGlobalEnvMap(name, value);
+	}
+
+	private void writeVariableToGlobalEnvMap(String name, String value) {
+		set(getEditableMapOfVariables(), originalValuesOfEditableMap, name,
+			value);
+		set(getTheCaseInsensitiveEnvironment(),
+			originalValuesOfCaseInsensitiveMap, name, value);
 	}
 
-	private void set(Map<String, String> variables, String name, String value) {
-		if (variables != null) //theCaseInsensitiveEnvironment may be null
-			if (value == null)
-				variables.remove(name);
-			else
-				variables.put(name, value);
+	private void set(Map<String, String> variables,
+			Map<String, String> originalValues, String name, String value) {
+		if (variables != null) { //theCaseInsensitiveEnvironment may be null
+			if (!originalValues.containsKey(name))
+				originalValues.put(name, variables.get(name));
+			set(variables, name, value);
+		}
+	}
+
+	private static void set(Map<String, String> variables, String name,
+			String value) {
+		if (value == null)
+			variables.remove(name);
+		else
+			variables.put(name, value);
 	}
 
 	private void writeVariableToBuffer(String name, String value) {
@@ -95,14 +301,60 @@ public class EnvironmentVariables implements TestRule {
 	}
 
 	private void copyVariablesFromBufferToEnvMap() {
+		if (variablesOfTestThread != null)
+			for (Map.Entry<String, String> nameAndValue: buffer.entrySet())
+				set(variablesOfTestThread, nameAndValue.getKey(),
+					nameAndValue.getValue());
+		else
+			copyVariablesFromBufferToGlobalEnvMap();
+	}
+
+	private void copyVariablesFromBufferToGlobalEnvMap() {
+		//look up the maps only once for all variables
+		Map<String, String> editableMap = getEditableMapOfVariables();
+		Map<String, String> caseInsensitiveMap
+			= getTheCaseInsensitiveEnvironment();
 		for (Map.Entry<String, String> nameAndValue: buffer.entrySet()) {
-			writeVariableToEnvMap(
-				nameAndValue.getKey(), nameAndValue.getValue());
+			String name = nameAndValue.getKey();
+			String value = nameAndValue.getValue();
+			set(editableMap, originalValuesOfEditableMap, name, value);
+			set(caseInsensitiveMap, originalValuesOfCaseInsensitiveMap, name,
+				value);
 		}
 	}
 
 	public Statement apply(Statement base, Description description) {
-		return new EnvironmentVariablesStatement(base);
+		if (scopedToTestThread)
+			return new ThreadScopedStatement(base);
+		else
+			return new EnvironmentVariablesStatement(base);
+	}
+
+	private class ThreadScopedStatement extends Statement {
+		final Statement baseStatement;
+
+		ThreadScopedStatement(Statement baseStatement) {
+			this.baseStatement = baseStatement;
+		}
+
+		@Override
+		public void evaluate() throws Throwable {
+			if (getTheCaseInsensitiveEnvironment() != null)
+				throw new IllegalStateException("EnvironmentVariables cannot"
+					+ " be scoped to the test thread on Windows, because"
+					+ " System.getenv(String) uses a map that cannot be"
+					+ " replaced.");
+			variablesOfTestThread = copyVariablesOfCurrentThread();
+			EnvironmentVariables.this.statementIsExecuting = true;
+			try {
+				copyVariablesFromBufferToEnvMap();
+				createThreadScopedStatement(
+					variablesOfTestThread, baseStatement).evaluate();
+			} finally {
+				EnvironmentVariables.this.statementIsExecuting = false;
+				variablesOfTestThread = null;
+			}
+		}
 	}
 
 	private class EnvironmentVariablesStatement extends Statement {
@@ -127,65 +379,40 @@ public class EnvironmentVariables implements TestRule {
 		}
 
 		void saveCurrentState() {
-			originalVariables = new HashMap<String, String>(getenv());
+			if (restoreAllVariables)
+				originalVariables = new HashMap<String, String>(getenv());
 		}
 
 		void restoreOriginalVariables() {
-			restoreVariables(getEditableMapOfVariables());
-			Map<String, String> theCaseInsensitiveEnvironment
-				= getTheCaseInsensitiveEnvironment();
-			if (theCaseInsensitiveEnvironment != null)
-				restoreVariables(theCaseInsensitiveEnvironment);
+			if (restoreAllVariables) {
+				restoreAllVariables(getEditableMapOfVariables());
+				Map<String, String> theCaseInsensitiveEnvironment
+					= getTheCaseInsensitiveEnvironment();
+				if (theCaseInsensitiveEnvironment != null)
+					restoreAllVariables(theCaseInsensitiveEnvironment);
+			} else {
+				restoreVariables(getEditableMapOfVariables(),
+					originalValuesOfEditableMap);
+				Map<String, String> theCaseInsensitiveEnvironment
+					= getTheCaseInsensitiveEnvironment();
+				if (theCaseInsensitiveEnvironment != null)
+					restoreVariables(theCaseInsensitiveEnvironment,
+						originalValuesOfCaseInsensitiveMap);
+			}
+			originalValuesOfEditableMap.clear();
+			originalValuesOfCaseInsensitiveMap.clear();
 		}
 
-		void restoreVariables(Map<String, String> variables) {
+		void restoreAllVariables(Map<String, String> variables) {
 			variables.clear();
 			variables.putAll(originalVariables);
 		}
-	}
-
-	private static Map<String, String> getEditableMapOfVariables() {
-		Class<?> classOfMap = getenv().getClass();
-		try {
-			return getFieldValue(classOfMap, getenv(), "m");
-		} catch (IllegalAccessException e) {
-			throw new RuntimeException("System Rules cannot access the field"
-				+ " 'm' of the map System.getenv().", e);
-		} catch (NoSuchFieldException e) {
-			throw new RuntimeException("System Rules expects System.getenv() to"
-				+ " have a field 'm' but it has not.", e);
-		}
-	}
 
-	/*
-	 * The names of environment variables are case-insensitive in Windows.
-	 * Therefore it stores the variables in a TreeMap named
-	 * theCaseInsensitiveEnvironment.
-     */
-	private static Map<String, String> getTheCaseInsensitiveEnvironment() {
-		try {
-			Class<?> processEnvironment = forName("java.lang.ProcessEnvironment");
-			return getFieldValue(
-				processEnvironment, null, "theCaseInsensitiveEnvironment");
-		} catch (ClassNotFoundException e) {
-			throw new RuntimeException("System Rules expects the existence of"
-				+ " the class java.lang.ProcessEnvironment but it does not"
-				+ " exist.", e);
-		} catch (IllegalAccessException e) {
-			throw new RuntimeException("System Rules cannot access the static"
-				+ " field 'theCaseInsensitiveEnvironment' of the class"
-				+ " java.lang.ProcessEnvironment.", e);
-		} catch (NoSuchFieldException e) {
-			//this field is only available for Windows
-			return null;
+		void restoreVariables(Map<String, String> variables,
+				Map<String, String> originalValues) {
+			for (Map.Entry<String, String> nameAndValue
+					: originalValues.entrySet())
+				set(variables, nameAndValue.getKey(), nameAndValue.getValue());
 		}
 	}
-
-	private static Map<String, String> getFieldValue(Class<?> klass,
-			Object object, String name)
-			throws NoSuchFieldException, IllegalAccessException {
-		Field field = klass.getDeclaredField(name);
-		field.setAccessible(true);
-		return (Map<String, String>) field.get(object);
-	}
 }
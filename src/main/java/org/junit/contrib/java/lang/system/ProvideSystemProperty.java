@@ -1,6 +1,7 @@
 package org.junit.contrib.java.lang.system;
 
 import static java.lang.System.clearProperty;
+import static org.junit.contrib.java.lang.system.internal.SystemPropertiesRouter.createThreadScopedStatement;
 
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -12,6 +13,8 @@ import java.util.Properties;
 
 import org.junit.contrib.java.lang.system.internal.RestoreSpecificSystemProperties;
 import org.junit.rules.ExternalResource;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
 
 /**
  * The {@code ProvideSystemProperty} rule provides an arbitrary value for a
@@ -77,10 +80,24 @@ import org.junit.rules.ExternalResource;
  *   System.setProperty("YourProperty", "YourValue");
  *   ...
  * }</pre>
+ * <h2>Parallel Tests</h2>
+ * <p>By default {@code ProvideSystemProperty} modifies the system properties
+ * of the whole JVM. Therefore tests that use it cannot run in parallel.
+ * {@link #scopeToTestThread()} restricts the rule to the thread that runs
+ * the test and to the threads that are created by this thread while the
+ * test is running. All tests that are running in parallel and modify system
+ * properties must use {@code scopeToTestThread()}.
+ * <pre>
+ * &#064;Rule
+ * public final ProvideSystemProperty provideSystemProperty
+ *   = new ProvideSystemProperty("MyProperty", "MyValue")
+ *     .scopeToTestThread();
+ * </pre>
  */
 public class ProvideSystemProperty extends ExternalResource {
 	private final Map<String, String> properties = new LinkedHashMap<String, String>();
 	private final RestoreSpecificSystemProperties restoreSystemProperty = new RestoreSpecificSystemProperties();
+	private boolean scopedToTestThread = false;
 
 	public static ProvideSystemProperty fromFile(String name) {
 		try {
@@ -177,6 +194,33 @@ public class ProvideSystemProperty extends ExternalResource {
 		properties.put(name, value);
 	}
 
+	/**
+	 * Restrict the rule to the thread that runs the test and to the threads
+	 * that are created by it while the test is running. These threads get
+	 * their own copy of the system properties with the provided values. Other
+	 * threads are not affected by the rule. This allows to run tests with
+	 * {@code ProvideSystemProperty} in parallel.
+	 *
+	 * <p>Threads that have been created before the test started (e.g. the
+	 * threads of a thread pool) are not affected by the rule even if they
+	 * are executing tasks of the test.
+	 *
+	 * @return the rule itself.
+	 * @since 1.19.0
+	 */
+	public ProvideSystemProperty scopeToTestThread() {
+		scopedToTestThread = true;
+		return this;
+	}
+
+	@Override
+	public Statement apply(Statement base, Description description) {
+		Statement statement = super.apply(base, description);
+		return scopedToTestThread
+			? createThreadScopedStatement(statement)
+			: statement;
+	}
+
 	@Override
 	protected void before() throws Throwable {
 		setProperties();
@@ -0,0 +1,140 @@
+package org.junit.contrib.java.lang.system;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.junit.contrib.java.lang.system.internal.RecordingFormat.writeChunk;
+import static org.junit.contrib.java.lang.system.internal.RecordingFormat.writeHeader;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * {@code RecordingInputStream} records the input of a program, so that it
+ * can be replayed by
+ * {@link TextFromStandardInputStream#provideRecording(String)}. Every chunk
+ * of bytes that is returned by a read is recorded together with the time
+ * since the previous chunk. Therefore a replay can reproduce bugs that
+ * depend on the way the input arrives.
+ *
+ * <p>Wrap {@code System.in} of the program that you want to record.
+ * <pre>
+ * public static void main(String... args) throws Exception {
+ *   RecordingInputStream in
+ *     = new RecordingInputStream(System.in, "session.recording");
+ *   System.setIn(in);
+ *   try {
+ *     YourProgram.main(args);
+ *   } finally {
+ *     in.close();
+ *   }
+ * }
+ * </pre>
+ * <p>The recording is buffered. It is complete after the stream has been
+ * closed.
+ *
+ * @since 1.19.0
+ */
+public class RecordingInputStream extends FilterInputStream {
+	private static final int BUFFER_SIZE = 8192;
+
+	private final OutputStream recording;
+	private long timeOfPreviousChunk = nanoTime();
+
+	/**
+	 * Creates a {@code RecordingInputStream} that writes the recording to
+	 * a file.
+	 *
+	 * @param in the stream whose input is recorded.
+	 * @param name the name of the file for the recording.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public RecordingInputStream(InputStream in, String name)
+			throws IOException {
+		this(in, new FileOutputStream(name));
+	}
+
+	/**
+	 * Creates a {@code RecordingInputStream} that writes the recording to
+	 * an {@code OutputStream}.
+	 *
+	 * @param in the stream whose input is recorded.
+	 * @param recording the stream that the recording is written to. It is
+	 * closed when the {@code RecordingInputStream} is closed.
+	 * @throws IOException if the recording cannot be written.
+	 */
+	public RecordingInputStream(InputStream in, OutputStream recording)
+			throws IOException {
+		super(in);
+		this.recording = new BufferedOutputStream(recording, BUFFER_SIZE);
+		writeHeader(this.recording);
+	}
+
+	@Override
+	public synchronized int read() throws IOException {
+		int b = super.read();
+		if (b != -1)
+			record(new byte[] { (byte) b }, 0, 1);
+		return b;
+	}
+
+	@Override
+	public synchronized int read(byte[] buffer, int offset, int len)
+			throws IOException {
+		int numberOfBytes = super.read(buffer, offset, len);
+		if (numberOfBytes > 0)
+			record(buffer, offset, numberOfBytes);
+		return numberOfBytes;
+	}
+
+	/**
+	 * Skips bytes by reading them, so that they are part of the recording.
+	 */
+	@Override
+	public long skip(long n) throws IOException {
+		if (n <= 0)
+			return 0;
+		byte[] skipped = new byte[(int) min(n, BUFFER_SIZE)];
+		return max(0, read(skipped, 0, skipped.length));
+	}
+
+	/**
+	 * Marks are not supported, because the bytes of a reset stream would be
+	 * recorded twice.
+	 */
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	@Override
+	public synchronized void mark(int readlimit) {
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		throw new IOException("mark/reset not supported");
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			super.close();
+		} finally {
+			recording.close();
+		}
+	}
+
+	private void record(byte[] bytes, int offset, int len)
+			throws IOException {
+		long now = nanoTime();
+		writeChunk(recording, NANOSECONDS.toMicros(now - timeOfPreviousChunk),
+			bytes, offset, len);
+		timeOfPreviousChunk = now;
+	}
+}
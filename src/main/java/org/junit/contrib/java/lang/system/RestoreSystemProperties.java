@@ -2,10 +2,14 @@ package org.junit.contrib.java.lang.system;
 
 import static java.lang.System.getProperties;
 import static java.lang.System.setProperties;
+import static org.junit.contrib.java.lang.system.internal.SystemPropertiesRouter.createThreadScopedStatement;
 
 import java.util.Properties;
 
+import org.junit.contrib.java.lang.system.internal.CopyOnWriteProperties;
 import org.junit.rules.ExternalResource;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
 
 /**
  * The {@code RestoreSystemProperties} rule undoes changes of system
@@ -26,9 +30,27 @@ import org.junit.rules.ExternalResource;
  * </pre>
  * After running the test, the system property {@code YourProperty} has
  * the value {@code YourValue} again.
+ * <p>The system properties are not copied. The rule stores the changes
+ * of the test and discards them afterwards. Therefore the rule is fast
+ * even if there are many system properties. The {@code Properties} object
+ * that has been returned by {@link System#getProperties()} before the test
+ * must not be modified during the test.
+ * <h2>Parallel Tests</h2>
+ * <p>By default {@code RestoreSystemProperties} modifies the system properties
+ * of the whole JVM. Therefore tests that use it cannot run in parallel.
+ * {@link #scopeToTestThread()} restricts the rule to the thread that runs
+ * the test and to the threads that are created by this thread while the
+ * test is running. All tests that are running in parallel and modify system
+ * properties must use {@code scopeToTestThread()}.
+ * <pre>
+ * &#064;Rule
+ * public final RestoreSystemProperties restoreSystemProperties
+ *   = new RestoreSystemProperties().scopeToTestThread();
+ * </pre>
  */
 public class RestoreSystemProperties extends ExternalResource {
 	private Properties originalProperties;
+	private boolean scopedToTestThread = false;
 
 	/**
 	 * Creates a {@code RestoreSystemProperties} rule that restores all
@@ -64,16 +86,39 @@ public class RestoreSystemProperties extends ExternalResource {
 	public void add(String property) {
 	}
 
+	/**
+	 * Restrict the rule to the thread that runs the test and to the threads
+	 * that are created by it while the test is running. These threads get
+	 * their own copy of the system properties. Other threads are not affected
+	 * by the rule. This allows to run tests with {@code
+	 * RestoreSystemProperties} in parallel.
+	 *
+	 * <p>Threads that have been created before the test started (e.g. the
+	 * threads of a thread pool) are not affected by the rule even if they
+	 * are executing tasks of the test.
+	 *
+	 * @return the rule itself.
+	 * @since 1.19.0
+	 */
+	public RestoreSystemProperties scopeToTestThread() {
+		scopedToTestThread = true;
+		return this;
+	}
+
 	@Override
-	protected void before() throws Throwable {
-		originalProperties = getProperties();
-		setProperties(copyOf(originalProperties));
+	public Statement apply(Statement base, Description description) {
+		if (scopedToTestThread)
+			return createThreadScopedStatement(base);
+		else
+			return super.apply(base, description);
 	}
 
-	private Properties copyOf(Properties source) {
-		Properties copy = new Properties();
-		copy.putAll(source);
-		return copy;
+	@Override
+	protected void before() throws Throwable {
+		originalProperties = getProperties();
+		//the test's changes are stored by the CopyOnWriteProperties and
+		//discarded when the original properties are set again
+		setProperties(new CopyOnWriteProperties(originalProperties));
 	}
 
 	@Override
@@ -2,6 +2,11 @@ package org.junit.contrib.java.lang.system;
 
 import static org.junit.contrib.java.lang.system.internal.PrintStreamHandler.SYSTEM_ERR;
 
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
 import org.junit.contrib.java.lang.system.internal.LogPrintStream;
 import org.junit.rules.TestRule;
 import org.junit.runner.Description;
@@ -49,6 +54,43 @@ import org.junit.runners.model.Statement;
  * }
  * </pre>
  *
+ * <p>The log can also be read line by line. The lines are decoded on
+ * demand. The iterator remembers its position. Therefore you can check for
+ * new lines repeatedly without reading the whole log again.
+ *
+ * <pre>
+ * public class SystemErrTest {
+ *   &#064;Rule
+ *   public final SystemErrRule systemErrRule = new SystemErrRule().enableLog();
+ *
+ *   &#064;Test
+ *   public void test() {
+ *     Iterator&lt;String&gt; lines = systemErrRule.getLogLines();
+ *     System.err.println("first line");
+ *     assertEquals("first line", lines.next());
+ *     System.err.println("second line");
+ *     assertEquals("second line", lines.next());
+ *   }
+ * }
+ * </pre>
+ *
+ * <p>Text that is written by another thread can be awaited. The test waits
+ * until a line matches the pattern or fails after the timeout.
+ *
+ * <pre>
+ * public class SystemErrTest {
+ *   &#064;Rule
+ *   public final SystemErrRule systemErrRule = new SystemErrRule().enableLog();
+ *
+ *   &#064;Test
+ *   public void test() throws Exception {
+ *     startServerInBackground();
+ *     systemErrRule.awaitLog(Pattern.compile("ready"), 10, TimeUnit.SECONDS);
+ *     ...
+ *   }
+ * }
+ * </pre>
+ *
  * <p>You don't have to enable logging for every test. It can be enabled for
  * specific tests only.
  *
@@ -89,6 +131,46 @@ import org.junit.runners.model.Statement;
  * }
  * </pre>
  *
+ * <p>Code that writes a lot of text to {@code System.err} may cause
+ * an {@code OutOfMemoryError} if the whole text is logged. Therefore you
+ * can limit the size of the log. The log keeps the most recently written
+ * bytes only.
+ *
+ * <pre>
+ * public class SystemErrTest {
+ *   &#064;Rule
+ *   public final SystemErrRule systemErrRule = new SystemErrRule().enableLog(1024);
+ *
+ *   &#064;Test
+ *   public void test() {
+ *     for (int i = 0; i &lt; 1000000; ++i)
+ *       System.err.println(i);
+ *     assertTrue(systemErrRule.getLog().endsWith(String.format("999999%n")));
+ *   }
+ * }
+ * </pre>
+ *
+ * <p>If you need the whole text then you can store the log in a temporary
+ * file. Only the first bytes are kept in memory. The text can be read
+ * without creating a huge {@code String} by using
+ * {@link #getLogAsInputStream()}.
+ *
+ * <pre>
+ * public class SystemErrTest {
+ *   &#064;Rule
+ *   public final SystemErrRule systemErrRule
+ *     = new SystemErrRule().enableLogSpillingToDisk(1024 * 1024);
+ *
+ *   &#064;Test
+ *   public void test() throws Exception {
+ *     for (int i = 0; i &lt; 100000000; ++i)
+ *       System.err.println(i);
+ *     InputStream log = systemErrRule.getLogAsInputStream();
+ *     ...
+ *   }
+ * }
+ * </pre>
+ *
  * <h2>Muting</h2>
  *
  * <p>Usually the output of a test to {@code System.err} does not have to be
@@ -149,6 +231,31 @@ import org.junit.runners.model.Statement;
  * }
  * </pre>
  *
+ * <h2>Buffering</h2>
+ *
+ * <p>Every line that is written to {@code System.err} is appended to the log.
+ * This slows down tests that write a lot of lines. With
+ * {@link #enableBuffering()} the text is collected in a buffer and the log
+ * receives it when the log is read, when the buffer is full or when the
+ * test finishes. The original stream still receives every line
+ * immediately. Combine buffering with {@link #mute()} if the test
+ * shouldn't spend time on writing to the original stream at all.
+ *
+ * <pre>
+ * public class SystemErrTest {
+ *   &#064;Rule
+ *   public final SystemErrRule systemErrRule
+ *     = new SystemErrRule().enableLog().enableBuffering();
+ *
+ *   &#064;Test
+ *   public void test() {
+ *     for (int i = 0; i &lt; 1000000; ++i)
+ *       System.err.println(i);
+ *     assertTrue(systemErrRule.getLog().startsWith("0"));
+ *   }
+ * }
+ * </pre>
+ *
  * <h2>Combine Logging and Muting</h2>
  *
  * <p>Logging and muting can be combined. No output is actually written to
@@ -167,6 +274,30 @@ import org.junit.runners.model.Statement;
  *   }
  * }
  * </pre>
+ *
+ * <h2>Parallel Tests</h2>
+ *
+ * <p>By default {@code SystemErrRule} replaces {@code System.err}
+ * for the whole JVM. Therefore tests that use it cannot run in parallel.
+ * {@link #scopeToTestThread()} restricts the rule to the text that is
+ * written by the thread that runs the test and by the threads that are
+ * created by this thread while the test is running. Other threads are not
+ * affected by the rule. All tests that are running in parallel must use
+ * {@code scopeToTestThread()}.
+ *
+ * <pre>
+ * public class SystemErrTest {
+ *   &#064;Rule
+ *   public final SystemErrRule systemErrRule
+ *     = new SystemErrRule().enableLog().scopeToTestThread();
+ *
+ *   &#064;Test
+ *   public void test() {
+ *     System.err.print("some text");
+ *     assertEquals("some text", systemErrRule.getLog());
+ *   }
+ * }
+ * </pre>
  */
 public class SystemErrRule implements TestRule {
 	private LogPrintStream logPrintStream = new LogPrintStream(SYSTEM_ERR);
@@ -231,6 +362,161 @@ public class SystemErrRule implements TestRule {
 		return this;
 	}
 
+	/**
+	 * Start logging of everything that is written to {@code System.err}
+	 * but keep only the last {@code maxBytes} bytes. Older bytes are dropped
+	 * from the log, hence the log's memory consumption does not depend on
+	 * the amount of text that is written to {@code System.err}.
+	 * <p>The first character of the log may be garbled if the log has been
+	 * truncated within the bytes of a multi-byte character.
+	 *
+	 * @param maxBytes the maximum number of bytes that are logged.
+	 * @return the rule itself.
+	 * @throws IllegalArgumentException if {@code maxBytes} is not positive.
+	 * @see #getNumberOfDroppedBytes()
+	 * @since 1.19.0
+	 */
+	public SystemErrRule enableLog(int maxBytes) {
+		logPrintStream.enableLog(maxBytes);
+		return this;
+	}
+
+	/**
+	 * Start logging of everything that is written to
+	 * {@code System.err}. The first {@code maxBytesInMemory} bytes are
+	 * kept in memory and all further bytes are written to a temporary file.
+	 * The file is deleted when the test finishes and therefore the log is
+	 * empty after the test.
+	 *
+	 * @param maxBytesInMemory the maximum number of bytes that are kept in
+	 * memory.
+	 * @return the rule itself.
+	 * @throws IllegalArgumentException if {@code maxBytesInMemory} is
+	 * negative.
+	 * @see #getLogAsInputStream()
+	 * @since 1.19.0
+	 */
+	public SystemErrRule enableLogSpillingToDisk(int maxBytesInMemory) {
+		logPrintStream.enableLogSpillingToDisk(maxBytesInMemory);
+		return this;
+	}
+
+	/**
+	 * Returns an {@code Iterator} over the complete lines of the log. The
+	 * lines don't contain the line separator
+	 * ({@code System.getProperty("line.separator")}). Text after the last
+	 * line separator is not provided by the iterator until the line is
+	 * completed.
+	 *
+	 * <p>The iterator is a cursor. It reads the log on demand and remembers
+	 * how far it has read the log. {@link Iterator#hasNext()} returns
+	 * {@code false} if there is no further complete line yet. It returns
+	 * {@code true} again as soon as another line has been completed. The
+	 * iterator continues with the beginning of the log after the log has
+	 * been cleared.
+	 *
+	 * @return an {@code Iterator} over the lines of the log.
+	 * @since 1.19.0
+	 */
+	public Iterator<String> getLogLines() {
+		return logPrintStream.getLogLines();
+	}
+
+	/**
+	 * Waits until a line of the log matches the pattern. The log's last line
+	 * is checked even if it is not completed by a line separator. The method
+	 * returns immediately if the log already has a matching line. Otherwise
+	 * it is notified by writes to {@code System.err} and checks the
+	 * text that has been logged since the last check.
+	 *
+	 * <p>The log must be enabled. Otherwise no text is logged that could
+	 * match the pattern.
+	 *
+	 * @param pattern the pattern that is searched for. It has to match a
+	 * part of a line only (see {@link java.util.regex.Matcher#find()}).
+	 * @param timeout the maximum time to wait.
+	 * @param unit the unit of the timeout.
+	 * @return the first line that matches the pattern (without line
+	 * separator).
+	 * @throws AssertionError if no line matches the pattern before the
+	 * timeout elapsed.
+	 * @throws InterruptedException if the current thread is interrupted
+	 * while waiting.
+	 * @since 1.19.0
+	 */
+	public String awaitLog(Pattern pattern, long timeout, TimeUnit unit)
+			throws InterruptedException {
+		return logPrintStream.awaitLog(pattern, timeout, unit);
+	}
+
+	/**
+	 * Returns the bytes that are written to {@code System.err} since
+	 * {@link #enableLog()} (respectively {@link #clearLog()} has been called.
+	 * In contrast to {@link #getLog()} the log is read on demand. This avoids
+	 * creating a huge {@code String} for a large log. Bytes that are written
+	 * to {@code System.err} after calling this method are not
+	 * provided by the stream.
+	 *
+	 * @return the log as {@code InputStream}.
+	 * @since 1.19.0
+	 */
+	public InputStream getLogAsInputStream() {
+		return logPrintStream.getLogAsInputStream();
+	}
+
+	/**
+	 * Returns the number of bytes that have been dropped from the log
+	 * because it is limited by {@link #enableLog(int)}. Bytes that have been
+	 * dropped by {@link #clearLog()} are not counted.
+	 *
+	 * @return the number of bytes that have been written to
+	 * {@code System.err} since {@link #enableLog(int)} (respectively
+	 * {@link #clearLog()}) has been called but are not part of the log.
+	 * @since 1.19.0
+	 */
+	public long getNumberOfDroppedBytes() {
+		return logPrintStream.getNumberOfDroppedBytes();
+	}
+
+	/**
+	 * Buffer the text that is written to {@code System.err} before it is
+	 * appended to the log. The buffered text is written to the log when
+	 * the log is read, when the buffer is full and when the test finishes.
+	 * The order of the text is preserved. The original {@code System.err}
+	 * is not buffered. It receives the text immediately, so that text
+	 * which is written before a test hangs or calls {@code System.exit} is
+	 * not lost.
+	 *
+	 * <p>The method must be called before the test starts, e.g. when the
+	 * rule is created.
+	 *
+	 * @return the rule itself.
+	 * @since 1.19.0
+	 */
+	public SystemErrRule enableBuffering() {
+		logPrintStream.enableBuffering();
+		return this;
+	}
+
+	/**
+	 * Restrict the rule to the thread that runs the test and to the threads
+	 * that are created by it while the test is running. Text that is written
+	 * to {@code System.err} by other threads is neither logged nor
+	 * muted. This allows to run tests with {@code SystemErrRule} in
+	 * parallel.
+	 *
+	 * <p>Threads that have been created before the test started (e.g. the
+	 * threads of a thread pool) are not affected by the rule even if they
+	 * are executing tasks of the test.
+	 *
+	 * @return the rule itself.
+	 * @since 1.19.0
+	 */
+	public SystemErrRule scopeToTestThread() {
+		logPrintStream.scopeToTestThread();
+		return this;
+	}
+
 	public Statement apply(Statement base, Description description) {
 		return logPrintStream.createStatement(base);
 	}
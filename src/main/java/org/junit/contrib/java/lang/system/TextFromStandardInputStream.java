@@ -1,14 +1,45 @@
 package org.junit.contrib.java.lang.system;
 
+import static java.lang.Math.ceil;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.System.arraycopy;
+import static java.lang.System.err;
 import static java.lang.System.getProperty;
+import static java.lang.System.nanoTime;
 import static java.lang.System.in;
 import static java.lang.System.setIn;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.charset.CodingErrorAction.REPLACE;
+import static java.nio.charset.Charset.defaultCharset;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringReader;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.util.Iterator;
+import java.util.Vector;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.junit.contrib.java.lang.system.internal.ByteBufferInputStream;
+import org.junit.contrib.java.lang.system.internal.ByteRateLimiter;
+import org.junit.contrib.java.lang.system.internal.EncodedLinesInputStream;
+import org.junit.contrib.java.lang.system.internal.LiveInputStream;
+import org.junit.contrib.java.lang.system.internal.RecordingReplayStream;
+import org.junit.contrib.java.lang.system.internal.SystemInRouter;
+import org.junit.internal.AssumptionViolatedException;
 import org.junit.rules.ExternalResource;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
 
 /**
  * The {@code TextFromStandardInputStream} rule replaces {@code System.in} with
@@ -39,10 +70,111 @@ import org.junit.rules.ExternalResource;
  * <pre>   systemInMock.{@link #throwExceptionOnInputEnd(RuntimeException)}</pre>
  * <p>If you call {@link #provideLines(String...)} in addition then the
  * exception is thrown after the text has been read from {@code System.in}.
+ *
+ * <h3>Large Inputs</h3>
+ * <p>The text is encoded with the default encoding before it is read unless
+ * you specify another charset by {@link #useCharset(Charset)}. By
+ * default {@code System.in.read(byte[], int, int)} returns at most a single
+ * line like the {@code System.in} of an interactive console and
+ * {@code System.in.available()} only counts the bytes of the current line.
+ * Call
+ * <pre>   systemInMock.{@link #enableBulkReads()}</pre>
+ * <p>if the code under test reads large inputs. Afterwards each read fills
+ * the whole array as long as there is text left.
+ * <p>Large inputs don't have to be loaded into memory. The content of a
+ * file is read from a memory-mapped buffer and the content of a resource
+ * from the class path is streamed.
+ * <pre>
+ *   systemInMock.{@link #provideFile(String) provideFile}("/home/myself/traffic.dump");
+ *   systemInMock.{@link #provideResource(String) provideResource}("traffic.dump");
+ * </pre>
+ * <p>The bytes of the file or resource are provided unchanged.
+ * <p>Generated lines can be provided by an {@code Iterator}. Its lines are
+ * requested while {@code System.in} is read. E.g. the following
+ * {@code Iterator} provides a million lines without storing them.
+ * <pre>
+ *   systemInMock.{@link #provideLines(Iterator) provideLines}(new Iterator&lt;String&gt;() {
+ *     private int count = 0;
+ *
+ *     public boolean hasNext() {
+ *       return count &lt; 1000000;
+ *     }
+ *
+ *     public String next() {
+ *       return "line " + (++count);
+ *     }
+ *
+ *     public void remove() {
+ *       throw new UnsupportedOperationException();
+ *     }
+ *   });
+ * </pre>
+ *
+ * <h3>Slow Input</h3>
+ * <p>Bugs of code that buffers its input often only show if the input
+ * arrives in small chunks. {@code TextFromStandardInputStream} can simulate
+ * such a {@code System.in}.
+ * <pre>
+ *   systemInMock.{@link #limitBytesPerRead(int) limitBytesPerRead}(16);
+ *   systemInMock.{@link #limitBytesPerSecond(long) limitBytesPerSecond}(1024);
+ * </pre>
+ * <p>The input of a real program can be recorded by a
+ * {@link RecordingInputStream} and replayed with its original chunks.
+ * <pre>
+ *   systemInMock.{@link #enableBulkReads()};
+ *   systemInMock.{@link #provideRecording(String) provideRecording}("session.recording");
+ * </pre>
+ *
+ * <h3>Interactive Input</h3>
+ * <p>Interactive programs that run in another thread can be fed with input
+ * while they are running. Call
+ * <pre>   systemInMock.{@link #enableLiveInput()}</pre>
+ * <p>before the program starts. Afterwards {@code System.in} waits for
+ * lines like the {@code System.in} of a console.
+ * <pre>
+ *   systemInMock.{@link #appendLines(String...) appendLines}("first command");
+ *   //wait for the program's response
+ *   systemInMock.appendLines("second command");
+ *   systemInMock.{@link #closeInput()};
+ * </pre>
+ * <p>{@code System.in} has to be read by a single thread only. Other
+ * sources of input like {@link #provideLines(String...)} replace the live
+ * input.
+ *
+ * <h3>Statistics</h3>
+ * <p>{@link #getStatistics()} tells you how the code under test reads
+ * {@code System.in}. This helps to find code that stopped reading or code
+ * that reads one byte at a time. The statistics can also be reported when
+ * a test fails.
+ * <pre>
+ *   &#064;Rule
+ *   public final TextFromStandardInputStream systemInMock
+ *     = emptyStandardInputStream().reportStatisticsOnFailure();
+ * </pre>
+ *
+ * <h3>Parallel Tests</h3>
+ * <p>By default {@code TextFromStandardInputStream} replaces
+ * {@code System.in} for the whole JVM. Therefore tests that use it cannot
+ * run in parallel. {@link #scopeToTestThread()} restricts the rule to the
+ * thread that runs the test and to the threads that are created by this
+ * thread while the test is running. Other threads read the original
+ * {@code System.in}. All tests that are running in parallel must use
+ * {@code scopeToTestThread()}.
+ * <pre>
+ *   &#064;Rule
+ *   public final TextFromStandardInputStream systemInMock
+ *     = emptyStandardInputStream().scopeToTestThread();
+ * </pre>
  */
 public class TextFromStandardInputStream extends ExternalResource {
+	private static final long MAX_MAPPED_SEGMENT_SIZE = 1 << 30;
+
 	private final SystemInMock systemInMock = new SystemInMock();
 	private InputStream originalIn;
+	private LiveInputStream liveInput;
+	private CharsetEncoder liveInputEncoder;
+	private boolean scopedToTestThread = false;
+	private boolean reportStatisticsOnFailure = false;
 
 	public static TextFromStandardInputStream emptyStandardInputStream() {
 		return new TextFromStandardInputStream("");
@@ -83,6 +215,289 @@ public class TextFromStandardInputStream extends ExternalResource {
 		systemInMock.provideText(joinLines(lines));
 	}
 
+	/**
+	 * Set the lines that are returned by {@code System.in}. The lines are
+	 * taken from the {@code Iterator} when they are read from
+	 * {@code System.in}. This allows for providing lines that don't fit
+	 * into memory. {@code System.getProperty("line.separator")} is used for
+	 * the end of line.
+	 *
+	 * @param lines an {@code Iterator} that provides the lines.
+	 * @since 1.19.0
+	 */
+	public void provideLines(Iterator<String> lines) {
+		systemInMock.provideInput(new EncodedLinesInputStream(lines,
+			systemInMock.getCharset(), getProperty("line.separator")));
+	}
+
+	/**
+	 * Set the charset that is used for encoding the text that is provided
+	 * afterwards. By default the text is encoded with the default charset
+	 * of the JVM, which is also used by readers like {@code Scanner} if you
+	 * don't specify a charset. The charset does not affect files and
+	 * resources.
+	 *
+	 * @param charset the charset of the text that is provided afterwards.
+	 * @since 1.19.0
+	 */
+	public void useCharset(Charset charset) {
+		systemInMock.useCharset(charset);
+	}
+
+	/**
+	 * Let {@code System.in} wait for lines that are appended by
+	 * {@link #appendLines(String...)} while the code under test is running.
+	 * Reading {@code System.in} blocks until a line is appended or
+	 * {@link #closeInput()} is called.
+	 *
+	 * @since 1.19.0
+	 */
+	public void enableLiveInput() {
+		liveInput = new LiveInputStream();
+		liveInputEncoder = systemInMock.getCharset().newEncoder()
+			.onMalformedInput(REPLACE)
+			.onUnmappableCharacter(REPLACE);
+		systemInMock.provideInput(liveInput);
+		systemInMock.enableLiveInput();
+	}
+
+	/**
+	 * Append lines to the input of {@code System.in}. A thread that waits
+	 * for input is woken up immediately.
+	 * {@code System.getProperty("line.separator")} is used for the end of
+	 * line. The method waits if 64 KB of input have not been read yet.
+	 *
+	 * @param lines a list of lines.
+	 * @throws IllegalStateException if {@link #enableLiveInput()} has not
+	 * been called before or if {@link #closeInput()} has been called
+	 * before.
+	 * @since 1.19.0
+	 */
+	public void appendLines(String... lines) {
+		checkLiveInputEnabled("appendLines(String...)");
+		if (liveInput.isClosed())
+			throw new IllegalStateException("You cannot call"
+				+ " appendLines(String...) because closeInput() has already"
+				+ " been called.");
+		ByteBuffer bytes = encodeLiveInput(joinLines(lines));
+		try {
+			liveInput.write(bytes.array(),
+				bytes.arrayOffset() + bytes.position(), bytes.remaining());
+		} catch (InterruptedIOException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("The thread has been interrupted"
+				+ " while it waited for System.in being read.", e);
+		}
+	}
+
+	/**
+	 * Signal the end of the input of {@code System.in}. The lines that have
+	 * been appended before can still be read. Afterwards {@code System.in}
+	 * behaves like a {@code System.in} whose text has been read completely.
+	 *
+	 * @throws IllegalStateException if {@link #enableLiveInput()} has not
+	 * been called before.
+	 * @since 1.19.0
+	 */
+	public void closeInput() {
+		checkLiveInputEnabled("closeInput()");
+		liveInput.close();
+	}
+
+	private ByteBuffer encodeLiveInput(String text) {
+		//a single encoder writes a byte order mark only once
+		CharBuffer chars = CharBuffer.wrap(text);
+		ByteBuffer bytes = ByteBuffer.allocate(
+			(int) ceil(text.length() * liveInputEncoder.maxBytesPerChar()));
+		liveInputEncoder.encode(chars, bytes, false);
+		bytes.flip();
+		return bytes;
+	}
+
+	private void checkLiveInputEnabled(String method) {
+		if (liveInput == null)
+			throw new IllegalStateException("You cannot call " + method
+				+ " because live input has not been enabled. Please call"
+				+ " enableLiveInput() before.");
+	}
+
+	/**
+	 * Set the file whose content is returned by {@code System.in}. The file
+	 * is mapped into memory and its content is not copied. Changes of the
+	 * file's content while {@code System.in} is read may be visible.
+	 *
+	 * @param name the name of the file.
+	 * @throws IllegalArgumentException if the file cannot be read.
+	 * @since 1.19.0
+	 */
+	public void provideFile(String name) {
+		try {
+			systemInMock.provideInput(mapFile(name));
+		} catch (IOException e) {
+			throw new IllegalArgumentException(
+				"Cannot provide file \"" + name + "\" because it cannot be"
+					+ " read.",
+				e);
+		}
+	}
+
+	/**
+	 * Set the resource whose content is returned by {@code System.in}. The
+	 * resource is found by {@link Class#getResourceAsStream(String)} of
+	 * {@code TextFromStandardInputStream} and it is streamed while
+	 * {@code System.in} is read.
+	 *
+	 * @param name the name of the resource.
+	 * @throws IllegalArgumentException if the resource does not exist.
+	 * @since 1.19.0
+	 */
+	public void provideResource(String name) {
+		InputStream is
+			= TextFromStandardInputStream.class.getResourceAsStream(name);
+		if (is == null)
+			throw new IllegalArgumentException(
+				"Cannot provide resource \"" + name + "\" because it does not"
+					+ " exist.");
+		systemInMock.provideInput(is);
+	}
+
+	/**
+	 * Set the recording whose input is returned by {@code System.in}. The
+	 * recording is created by a {@link RecordingInputStream} and it is
+	 * streamed while {@code System.in} is read. A read never returns more
+	 * bytes than the recorded chunk, so that together with
+	 * {@link #enableBulkReads()} the code under test gets the same chunks as
+	 * the recorded program. The delays between the chunks are not replayed.
+	 *
+	 * @param name the name of the file with the recording.
+	 * @throws IllegalArgumentException if the file cannot be read or if it is
+	 * not a recording.
+	 * @see #provideRecordingWithDelays(String)
+	 * @since 1.19.0
+	 */
+	public void provideRecording(String name) {
+		provideRecording(name, false);
+	}
+
+	/**
+	 * Set the recording whose input is returned by {@code System.in} like
+	 * {@link #provideRecording(String)} does, but let a read wait for the next
+	 * chunk as long as the recorded program waited for it.
+	 *
+	 * @param name the name of the file with the recording.
+	 * @throws IllegalArgumentException if the file cannot be read or if it is
+	 * not a recording.
+	 * @since 1.19.0
+	 */
+	public void provideRecordingWithDelays(String name) {
+		provideRecording(name, true);
+	}
+
+	private void provideRecording(String name, boolean replayDelays) {
+		try {
+			systemInMock.provideInput(
+				new RecordingReplayStream(name, replayDelays));
+		} catch (IOException e) {
+			throw new IllegalArgumentException(
+				"Cannot provide recording \"" + name + "\" because it cannot"
+					+ " be read.",
+				e);
+		}
+	}
+
+	/**
+	 * Restrict the rule to the thread that runs the test and to the threads
+	 * that are created by it while the test is running. Other threads read
+	 * the original {@code System.in}. This allows to run tests with
+	 * {@code TextFromStandardInputStream} in parallel.
+	 *
+	 * <p>Threads that have been created before the test started (e.g. the
+	 * threads of a thread pool) are not affected by the rule even if they
+	 * are executing tasks of the test.
+	 *
+	 * @return the rule itself.
+	 * @since 1.19.0
+	 */
+	public TextFromStandardInputStream scopeToTestThread() {
+		scopedToTestThread = true;
+		return this;
+	}
+
+	/**
+	 * Add the {@link #getStatistics() statistics} of {@code System.in} to
+	 * the failure of a test. This helps to find out whether a test that
+	 * timed out is waiting for input. If the test fails with an
+	 * {@code AssertionError} then the statistics are appended to its
+	 * message. The original error is the cause of the new one. Any other
+	 * exception is not changed and the statistics are written to
+	 * {@code System.err} instead. Violated assumptions are not reported.
+	 *
+	 * @return the rule itself.
+	 * @since 1.19.0
+	 */
+	public TextFromStandardInputStream reportStatisticsOnFailure() {
+		reportStatisticsOnFailure = true;
+		return this;
+	}
+
+	/**
+	 * Returns statistics about the reads of {@code System.in} since the rule
+	 * has been created.
+	 *
+	 * @return a snapshot of the statistics.
+	 * @since 1.19.0
+	 */
+	public Statistics getStatistics() {
+		return systemInMock.getStatistics();
+	}
+
+	/**
+	 * Let {@code System.in.read(byte[], int, int)} return as many bytes as
+	 * requested instead of a single line and let
+	 * {@code System.in.available()} return the number of all remaining bytes.
+	 * This speeds up code that reads large inputs.
+	 *
+	 * @since 1.19.0
+	 */
+	public void enableBulkReads() {
+		systemInMock.enableBulkReads();
+	}
+
+	/**
+	 * Limit the number of bytes that are returned by a single call of
+	 * {@code System.in.read(byte[], int, int)}. This simulates a
+	 * {@code System.in} that delivers its input in small chunks.
+	 *
+	 * @param maxBytes the maximum number of bytes per read.
+	 * @throws IllegalArgumentException if {@code maxBytes} is not positive.
+	 * @since 1.19.0
+	 */
+	public void limitBytesPerRead(int maxBytes) {
+		if (maxBytes <= 0)
+			throw new IllegalArgumentException(
+				"The maximum number of bytes per read must be positive but is "
+					+ maxBytes + ".");
+		systemInMock.limitBytesPerRead(maxBytes);
+	}
+
+	/**
+	 * Limit the number of bytes that are returned by {@code System.in} per
+	 * second. This simulates a slow producer of input. A read waits until the
+	 * next bytes are due and returns at most the bytes of 50 milliseconds.
+	 *
+	 * @param bytesPerSecond the maximum number of bytes per second.
+	 * @throws IllegalArgumentException if {@code bytesPerSecond} is not
+	 * positive.
+	 * @since 1.19.0
+	 */
+	public void limitBytesPerSecond(long bytesPerSecond) {
+		if (bytesPerSecond <= 0)
+			throw new IllegalArgumentException(
+				"The maximum number of bytes per second must be positive but"
+					+ " is " + bytesPerSecond + ".");
+		systemInMock.limitBytesPerSecond(bytesPerSecond);
+	}
+
 	/**
 	 * Specify an {@code IOException} that is thrown by {@code System.in}. If
 	 * you call {@link #provideLines(String...)} or
@@ -113,6 +528,29 @@ public class TextFromStandardInputStream extends ExternalResource {
 		systemInMock.throwExceptionOnInputEnd(exception);
 	}
 
+	private static InputStream mapFile(String name) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(name, "r");
+		try {
+			//a single buffer can only map up to Integer.MAX_VALUE bytes
+			FileChannel channel = file.getChannel();
+			long size = channel.size();
+			Vector<InputStream> segments = new Vector<InputStream>();
+			for (long position = 0; position < size;
+					position += MAX_MAPPED_SEGMENT_SIZE) {
+				long segmentSize = min(MAX_MAPPED_SEGMENT_SIZE, size - position);
+				ByteBuffer segment = channel.map(READ_ONLY, position, segmentSize);
+				segments.add(new ByteBufferInputStream(segment));
+			}
+			if (segments.size() == 1)
+				return segments.get(0);
+			else
+				return new SequenceInputStream(segments.elements());
+		} finally {
+			//the mapped buffers stay valid
+			file.close();
+		}
+	}
+
 	private String join(String[] texts) {
 		StringBuilder sb = new StringBuilder();
 		for (String text: texts)
@@ -127,6 +565,60 @@ public class TextFromStandardInputStream extends ExternalResource {
 		return sb.toString();
 	}
 
+	@Override
+	public Statement apply(Statement base, Description description) {
+		Statement statement = createReportStatement(base);
+		if (scopedToTestThread)
+			return createThreadScopedStatement(statement);
+		else
+			return super.apply(statement, description);
+	}
+
+	private Statement createReportStatement(final Statement base) {
+		return new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				try {
+					base.evaluate();
+				} catch (AssumptionViolatedException e) {
+					throw e;
+				} catch (AssertionError e) {
+					if (reportStatisticsOnFailure)
+						throw addStatistics(e);
+					else
+						throw e;
+				} catch (Throwable e) {
+					if (reportStatisticsOnFailure)
+						err.println(getStatistics());
+					throw e;
+				}
+			}
+		};
+	}
+
+	private AssertionError addStatistics(AssertionError failure) {
+		AssertionError error = new AssertionError(failure.getMessage()
+			+ getProperty("line.separator") + getStatistics());
+		error.setStackTrace(failure.getStackTrace());
+		error.initCause(failure);
+		return error;
+	}
+
+	private Statement createThreadScopedStatement(final Statement base) {
+		final Statement readFromMock
+			= SystemInRouter.createThreadScopedStatement(systemInMock, base);
+		return new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				try {
+					readFromMock.evaluate();
+				} finally {
+					systemInMock.closeCurrentInput();
+				}
+			}
+		};
+	}
+
 	@Override
 	protected void before() throws Throwable {
 		originalIn = in;
@@ -136,15 +628,177 @@ public class TextFromStandardInputStream extends ExternalResource {
 	@Override
 	protected void after() {
 		setIn(originalIn);
+		systemInMock.closeCurrentInput();
+	}
+
+	/**
+	 * Statistics about the reads of {@code System.in}.
+	 *
+	 * @see #getStatistics()
+	 * @since 1.19.0
+	 */
+	public static class Statistics {
+		private final long numberOfBytesRead;
+		private final long numberOfSingleByteReads;
+		private final long numberOfByteArrayReads;
+		private final long nanosBlocked;
+
+		private Statistics(long numberOfBytesRead, long numberOfSingleByteReads,
+				long numberOfByteArrayReads, long nanosBlocked) {
+			this.numberOfBytesRead = numberOfBytesRead;
+			this.numberOfSingleByteReads = numberOfSingleByteReads;
+			this.numberOfByteArrayReads = numberOfByteArrayReads;
+			this.nanosBlocked = nanosBlocked;
+		}
+
+		/**
+		 * Returns the number of bytes that have been read.
+		 *
+		 * @return the number of bytes that have been read.
+		 */
+		public long getNumberOfBytesRead() {
+			return numberOfBytesRead;
+		}
+
+		/**
+		 * Returns the number of calls of {@code System.in.read()}.
+		 *
+		 * @return the number of calls of {@code System.in.read()}.
+		 */
+		public long getNumberOfSingleByteReads() {
+			return numberOfSingleByteReads;
+		}
+
+		/**
+		 * Returns the number of calls of
+		 * {@code System.in.read(byte[], int, int)}.
+		 *
+		 * @return the number of calls of
+		 * {@code System.in.read(byte[], int, int)}.
+		 */
+		public long getNumberOfByteArrayReads() {
+			return numberOfByteArrayReads;
+		}
+
+		/**
+		 * Returns the number of calls of {@code System.in.read()} and
+		 * {@code System.in.read(byte[], int, int)}.
+		 *
+		 * @return the number of all reads.
+		 */
+		public long getNumberOfReads() {
+			return numberOfSingleByteReads + numberOfByteArrayReads;
+		}
+
+		/**
+		 * Returns the time that reads have been waiting for
+		 * {@link TextFromStandardInputStream#appendLines(String...) live
+		 * input} or because of a
+		 * {@link TextFromStandardInputStream#limitBytesPerSecond(long)
+		 * limited number of bytes per second}. It includes the time of a
+		 * read that is currently waiting.
+		 *
+		 * @param unit the unit of the returned time.
+		 * @return the time that reads have been waiting.
+		 */
+		public long getTimeBlocked(TimeUnit unit) {
+			return unit.convert(nanosBlocked, NANOSECONDS);
+		}
+
+		@Override
+		public String toString() {
+			return "System.in has been read " + getNumberOfReads() + " times ("
+				+ numberOfSingleByteReads + " single bytes, "
+				+ numberOfByteArrayReads + " byte arrays). "
+				+ numberOfBytesRead + " bytes have been read. Reads have been"
+				+ " waiting for input for " + getTimeBlocked(MILLISECONDS)
+				+ " ms.";
+		}
 	}
 
 	private static class SystemInMock extends InputStream {
-		private StringReader currentReader;
+		private static final int BUFFER_SIZE = 8192;
+		private static final int SKIP_BUFFER_SIZE = 2048;
+
+		private final byte[] buffer = new byte[BUFFER_SIZE];
+		private int bufferPosition = 0;
+		private int bufferEnd = 0;
+		private InputStream currentInput;
+		private boolean bulkReads = false;
+		private boolean liveInput = false;
+		private boolean previousBufferEndedWithLine = true;
+		private int maxBytesPerRead = Integer.MAX_VALUE;
+		private ByteRateLimiter rateLimiter;
+		private Charset charset = defaultCharset();
+		private String lineSeparator;
+		private Charset charsetOfEncodedLineSeparator;
+		private byte[] encodedLineSeparator;
 		private IOException ioException;
 		private RuntimeException runtimeException;
+		private final AtomicLong numberOfBytesRead = new AtomicLong();
+		private final AtomicLong numberOfSingleByteReads = new AtomicLong();
+		private final AtomicLong numberOfByteArrayReads = new AtomicLong();
+		private final AtomicLong nanosBlocked = new AtomicLong();
+		private volatile long startOfBlockingRead = 0;
+
+		Statistics getStatistics() {
+			long nanosBlocked = this.nanosBlocked.get();
+			long startOfBlockingRead = this.startOfBlockingRead;
+			if (startOfBlockingRead != 0)
+				nanosBlocked += nanoTime() - startOfBlockingRead;
+			return new Statistics(numberOfBytesRead.get(),
+				numberOfSingleByteReads.get(), numberOfByteArrayReads.get(),
+				nanosBlocked);
+		}
+
+		void useCharset(Charset charset) {
+			this.charset = charset;
+		}
+
+		Charset getCharset() {
+			return charset;
+		}
 
 		void provideText(String text) {
-			currentReader = new StringReader(text);
+			/* The text is encoded with the default encoding unless another
+			 * charset is specified, because readers of System.in like a
+			 * Scanner decode it with the default encoding, too.
+			 */
+			provideInput(new ByteBufferInputStream(charset.encode(text)));
+		}
+
+		void provideInput(InputStream input) {
+			closeCurrentInput();
+			liveInput = false;
+			currentInput = input;
+			bufferPosition = 0;
+			bufferEnd = 0;
+			previousBufferEndedWithLine = true;
+		}
+
+		void closeCurrentInput() {
+			try {
+				if (currentInput != null)
+					currentInput.close();
+			} catch (IOException e) {
+				//the input is not read anymore
+			}
+		}
+
+		void enableLiveInput() {
+			liveInput = true;
+		}
+
+		void enableBulkReads() {
+			bulkReads = true;
+		}
+
+		void limitBytesPerRead(int maxBytes) {
+			maxBytesPerRead = maxBytes;
+		}
+
+		void limitBytesPerSecond(long bytesPerSecond) {
+			rateLimiter = new ByteRateLimiter(bytesPerSecond);
 		}
 
 		void throwExceptionOnInputEnd(IOException exception) {
@@ -167,13 +821,40 @@ public class TextFromStandardInputStream extends ExternalResource {
 
 		@Override
 		public int read() throws IOException {
-			int character = currentReader.read();
-			if (character == -1)
-				handleEmptyReader();
-			return character;
+			numberOfSingleByteReads.incrementAndGet();
+			if (!mayBlock())
+				return readSingleByte();
+			startOfBlockingRead = nanoTime();
+			try {
+				return readSingleByte();
+			} finally {
+				readFinished();
+			}
+		}
+
+		private boolean mayBlock() {
+			return liveInput || rateLimiter != null;
+		}
+
+		private void readFinished() {
+			nanosBlocked.addAndGet(nanoTime() - startOfBlockingRead);
+			startOfBlockingRead = 0;
+		}
+
+		private int readSingleByte() throws IOException {
+			if (rateLimiter != null)
+				rateLimiter.awaitAllowedBytes(1);
+			if (bufferPosition == bufferEnd && !fillBuffer()) {
+				handleEmptyInput();
+				return -1;
+			}
+			if (rateLimiter != null)
+				rateLimiter.bytesDelivered(1);
+			numberOfBytesRead.incrementAndGet();
+			return buffer[bufferPosition++] & 0xFF;
 		}
 
-		private void handleEmptyReader() throws IOException {
+		private void handleEmptyInput() throws IOException {
 			if (ioException != null)
 				throw ioException;
 			else if (runtimeException != null)
@@ -186,44 +867,155 @@ public class TextFromStandardInputStream extends ExternalResource {
 				throw new NullPointerException();
 			else if (offset < 0 || len < 0 || len > buffer.length - offset)
 				throw new IndexOutOfBoundsException();
-			else if (len == 0)
+			numberOfByteArrayReads.incrementAndGet();
+			if (len == 0)
 				return 0;
-			else
-				return readNextLine(buffer, offset, len);
+			else if (!mayBlock())
+				return readLimitedNumberOfBytes(buffer, offset, len);
+			startOfBlockingRead = nanoTime();
+			try {
+				return readLimitedNumberOfBytes(buffer, offset, len);
+			} finally {
+				readFinished();
+			}
 		}
 
-		private int readNextLine(byte[] buffer, int offset, int len)
+		private int readLimitedNumberOfBytes(byte[] bytes, int offset, int len)
 				throws IOException {
-			int c = read();
-			if (c == -1)
-				return -1;
-			buffer[offset] = (byte) c;
+			len = min(len, maxBytesPerRead);
+			if (rateLimiter != null)
+				len = rateLimiter.awaitAllowedBytes(len);
+			int numberOfBytes = bulkReads
+				? readBytes(bytes, offset, len)
+				: readNextLine(bytes, offset, len);
+			if (numberOfBytes > 0) {
+				numberOfBytesRead.addAndGet(numberOfBytes);
+				if (rateLimiter != null)
+					rateLimiter.bytesDelivered(numberOfBytes);
+			}
+			return numberOfBytes;
+		}
+
+		private int readBytes(byte[] bytes, int offset, int len)
+				throws IOException {
+			int numberOfBytes;
+			if (bufferPosition < bufferEnd) {
+				numberOfBytes = min(len, bufferEnd - bufferPosition);
+				arraycopy(buffer, bufferPosition, bytes, offset, numberOfBytes);
+				bufferPosition += numberOfBytes;
+			} else
+				numberOfBytes = currentInput.read(bytes, offset, len);
+			if (numberOfBytes == -1)
+				handleEmptyInput();
+			return numberOfBytes;
+		}
 
-			int i = 1;
-			for (; (i < len) && !isCompleteLineWritten(buffer, i - 1); ++i) {
-				byte read = (byte) read();
-				if (read == -1)
+		private int readNextLine(byte[] bytes, int offset, int len)
+				throws IOException {
+			byte[] separator = getEncodedLineSeparator();
+			byte lastByteOfSeparator = separator[separator.length - 1];
+			int i = 0;
+			while (i < len) {
+				if (bufferPosition == bufferEnd && !fillBuffer())
+					break;
+				byte b = buffer[bufferPosition++];
+				bytes[offset + i++] = b;
+				if (b == lastByteOfSeparator
+						&& endsWith(bytes, offset, i, separator))
 					break;
-				else
-					buffer[offset + i] = read;
 			}
-			return i;
+			if (i == 0) {
+				handleEmptyInput();
+				return -1;
+			} else
+				return i;
+		}
+
+		private boolean fillBuffer() throws IOException {
+			previousBufferEndedWithLine = isAtStartOfLine();
+			bufferPosition = 0;
+			bufferEnd = max(0, currentInput.read(buffer, 0, buffer.length));
+			return bufferEnd > 0;
 		}
 
-		private boolean isCompleteLineWritten(byte[] buffer,
-				int indexLastByteWritten) {
-			byte[] separator = getProperty("line.separator").getBytes();
-			int indexFirstByteOfSeparator = indexLastByteWritten
-				- separator.length + 1;
-			return indexFirstByteOfSeparator >= 0
-				&& contains(buffer, separator, indexFirstByteOfSeparator);
+		private byte[] getEncodedLineSeparator() {
+			String currentLineSeparator = getProperty("line.separator");
+			if (!currentLineSeparator.equals(lineSeparator)
+					|| charset != charsetOfEncodedLineSeparator) {
+				encodedLineSeparator = encodeWithoutByteOrderMark(
+					currentLineSeparator);
+				lineSeparator = currentLineSeparator;
+				charsetOfEncodedLineSeparator = charset;
+			}
+			return encodedLineSeparator;
+		}
+
+		private byte[] encodeWithoutByteOrderMark(String text) {
+			//Charsets like UTF-16 start their output with a byte order mark.
+			//It only appears once if the text is encoded twice.
+			int lengthOnce = charset.encode(text).remaining();
+			ByteBuffer twice = charset.encode(text + text);
+			byte[] bytes = new byte[twice.remaining() - lengthOnce];
+			twice.position(twice.limit() - bytes.length);
+			twice.get(bytes);
+			return bytes;
+		}
+
+		private boolean isAtStartOfLine() {
+			byte[] separator = getEncodedLineSeparator();
+			if (bufferPosition == 0)
+				return previousBufferEndedWithLine;
+			else
+				return endsWith(buffer, 0, bufferPosition, separator);
 		}
 
-		private boolean contains(byte[] array, byte[] pattern, int indexStart) {
-			for (int i = 0; i < pattern.length; ++i)
-                if (array[indexStart + i] != pattern[i])
-                    return false;
+		private boolean endsWith(byte[] bytes, int offset, int len,
+				byte[] suffix) {
+			int indexFirstByteOfSuffix = offset + len - suffix.length;
+			if (indexFirstByteOfSuffix < offset)
+				return false;
+			for (int i = 0; i < suffix.length; ++i)
+				if (bytes[indexFirstByteOfSuffix + i] != suffix[i])
+					return false;
 			return true;
 		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			//the bytes are read, so that they are counted and the end of the
+			//input is handled like by read
+			if (n <= 0)
+				return 0;
+			byte[] skippedBytes = new byte[(int) min(n, SKIP_BUFFER_SIZE)];
+			long remaining = n;
+			while (remaining > 0) {
+				int numberOfBytes = read(
+					skippedBytes, 0, (int) min(remaining, skippedBytes.length));
+				if (numberOfBytes == -1)
+					break;
+				remaining -= numberOfBytes;
+			}
+			return n - remaining;
+		}
+
+		@Override
+		public int available() throws IOException {
+			if (bulkReads || liveInput)
+				return bufferEnd - bufferPosition + currentInput.available();
+			else if (isAtStartOfLine())
+				//like a console that waits for the next line
+				return 0;
+			else
+				return getLengthOfRestOfLine();
+		}
+
+		private int getLengthOfRestOfLine() {
+			byte[] separator = getEncodedLineSeparator();
+			for (int i = bufferPosition; i < bufferEnd; ++i)
+				if (endsWith(buffer, bufferPosition, i + 1 - bufferPosition,
+						separator))
+					return i + 1 - bufferPosition;
+			return bufferEnd - bufferPosition;
+		}
 	}
 }
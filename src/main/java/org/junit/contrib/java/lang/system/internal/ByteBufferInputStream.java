@@ -0,0 +1,51 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static java.lang.Math.min;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the remaining bytes of a {@code ByteBuffer}. Bulk reads are copied
+ * directly from the buffer.
+ */
+public class ByteBufferInputStream extends InputStream {
+	private final ByteBuffer buffer;
+
+	public ByteBufferInputStream(ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	@Override
+	public int read() {
+		if (buffer.hasRemaining())
+			return buffer.get() & 0xFF;
+		else
+			return -1;
+	}
+
+	@Override
+	public int read(byte[] bytes, int offset, int len) {
+		if (len == 0)
+			return 0;
+		else if (!buffer.hasRemaining())
+			return -1;
+		int numberOfBytes = min(len, buffer.remaining());
+		buffer.get(bytes, offset, numberOfBytes);
+		return numberOfBytes;
+	}
+
+	@Override
+	public long skip(long n) {
+		int numberOfBytes = (int) min(n, buffer.remaining());
+		if (numberOfBytes <= 0)
+			return 0;
+		buffer.position(buffer.position() + numberOfBytes);
+		return numberOfBytes;
+	}
+
+	@Override
+	public int available() {
+		return buffer.remaining();
+	}
+}
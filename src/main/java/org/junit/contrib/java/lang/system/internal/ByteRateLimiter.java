@@ -0,0 +1,62 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static java.lang.Math.ceil;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.locks.LockSupport.parkNanos;
+
+import java.io.InterruptedIOException;
+
+/**
+ * Limits the number of bytes per second by a token bucket. The bucket is
+ * refilled based on {@code System.nanoTime()} whenever bytes are requested.
+ * It holds the bytes of 50 milliseconds at most. Therefore the bytes are
+ * delivered in small chunks like from a slow pipe.
+ */
+public class ByteRateLimiter {
+	private static final double NANOS_PER_SECOND = 1e9;
+	private static final int CHUNKS_PER_SECOND = 20;
+
+	private final double bytesPerNano;
+	private final double maxTokens;
+	private double tokens;
+	private long lastRefillTime = nanoTime();
+
+	public ByteRateLimiter(long bytesPerSecond) {
+		this.bytesPerNano = bytesPerSecond / NANOS_PER_SECOND;
+		this.maxTokens = max(1, bytesPerSecond / CHUNKS_PER_SECOND);
+		this.tokens = maxTokens;
+	}
+
+	/**
+	 * Waits until at least one byte may be delivered.
+	 *
+	 * @param requestedBytes the number of bytes that are requested.
+	 * @return the number of bytes that may be delivered now. It is between
+	 * 1 and {@code requestedBytes}.
+	 * @throws InterruptedIOException if the thread is interrupted while it
+	 * waits.
+	 */
+	public synchronized int awaitAllowedBytes(int requestedBytes)
+			throws InterruptedIOException {
+		refill();
+		while (tokens < 1) {
+			parkNanos((long) ceil((1 - tokens) / bytesPerNano));
+			if (Thread.interrupted())
+				throw new InterruptedIOException();
+			refill();
+		}
+		return (int) min(requestedBytes, tokens);
+	}
+
+	public synchronized void bytesDelivered(int numberOfBytes) {
+		tokens -= numberOfBytes;
+	}
+
+	private void refill() {
+		long now = nanoTime();
+		tokens = min(maxTokens, tokens + (now - lastRefillTime) * bytesPerNano);
+		lastRefillTime = now;
+	}
+}
@@ -0,0 +1,80 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.System.arraycopy;
+
+/**
+ * A {@link LogBuffer} with a fixed capacity. It stores the last bytes that
+ * have been written to it and drops older bytes. Its memory consumption
+ * does not depend on the number of bytes that are written to it.
+ */
+class CircularLogBuffer extends LogBuffer {
+	private final byte[] bytes;
+	private long endPosition = 0;
+	private long resetPosition = 0;
+
+	CircularLogBuffer(int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException(
+				"The capacity of the log must be positive but is "
+					+ capacity + ".");
+		bytes = new byte[capacity];
+	}
+
+	@Override
+	public synchronized void write(byte[] buffer, int offset, int len) {
+		checkBounds(buffer, offset, len);
+		if (len > bytes.length) {
+			//only the last bytes of the buffer would survive
+			endPosition += len - bytes.length;
+			offset += len - bytes.length;
+			len = bytes.length;
+		}
+		int start = indexOf(endPosition);
+		int lenUntilEndOfArray = min(len, bytes.length - start);
+		arraycopy(buffer, offset, bytes, start, lenUntilEndOfArray);
+		arraycopy(buffer, offset + lenUntilEndOfArray, bytes, 0,
+			len - lenUntilEndOfArray);
+		endPosition += len;
+	}
+
+	@Override
+	synchronized void reset() {
+		resetPosition = endPosition;
+	}
+
+	@Override
+	synchronized long getStartPosition() {
+		return max(resetPosition, endPosition - bytes.length);
+	}
+
+	@Override
+	synchronized long getEndPosition() {
+		return endPosition;
+	}
+
+	@Override
+	synchronized int read(long position, byte[] buffer, int offset, int len) {
+		checkBounds(buffer, offset, len);
+		if (position < getStartPosition())
+			throw new IllegalArgumentException("The byte at position "
+				+ position + " is no longer stored.");
+		else if (position >= endPosition)
+			return -1;
+		int start = indexOf(position);
+		int numberOfReadBytes = (int) min(
+			min(len, endPosition - position), bytes.length - start);
+		arraycopy(bytes, start, buffer, offset, numberOfReadBytes);
+		return numberOfReadBytes;
+	}
+
+	@Override
+	synchronized long getNumberOfDroppedBytes() {
+		return max(0, endPosition - bytes.length - resetPosition);
+	}
+
+	private int indexOf(long position) {
+		return (int) (position % bytes.length);
+	}
+}
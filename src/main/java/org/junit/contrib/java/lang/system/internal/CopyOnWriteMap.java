@@ -0,0 +1,193 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@code Map} that is based on another map without copying it. Changes
+ * are stored by the {@code CopyOnWriteMap} itself and the original map is
+ * never modified. The original map must not be modified while it is used
+ * by a {@code CopyOnWriteMap}. {@code null} is not supported as key or
+ * value.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ */
+public class CopyOnWriteMap<K, V> extends AbstractMap<K, V> {
+	private final Map<K, V> original;
+	private final Map<K, V> changedEntries = new HashMap<K, V>();
+	private final Set<Object> removedKeys = new HashSet<Object>();
+	private int numberOfAddedKeys = 0;
+
+	public CopyOnWriteMap(Map<K, V> original) {
+		this.original = original;
+	}
+
+	@Override
+	public synchronized V get(Object key) {
+		V value = changedEntries.get(key);
+		if (value != null || removedKeys.contains(key))
+			return value;
+		else
+			return original.get(key);
+	}
+
+	@Override
+	public synchronized boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	@Override
+	public synchronized V put(K key, V value) {
+		if (key == null || value == null)
+			throw new NullPointerException();
+		V previousValue = get(key);
+		if (previousValue == null && !removedKeys.remove(key))
+			++numberOfAddedKeys;
+		changedEntries.put(key, value);
+		return previousValue;
+	}
+
+	@Override
+	public synchronized V remove(Object key) {
+		V previousValue = get(key);
+		if (previousValue != null) {
+			changedEntries.remove(key);
+			if (original.containsKey(key))
+				removedKeys.add(key);
+			else
+				--numberOfAddedKeys;
+		}
+		return previousValue;
+	}
+
+	@Override
+	public synchronized void clear() {
+		changedEntries.clear();
+		numberOfAddedKeys = 0;
+		removedKeys.addAll(original.keySet());
+	}
+
+	@Override
+	public synchronized int size() {
+		return original.size() - removedKeys.size() + numberOfAddedKeys;
+	}
+
+	/**
+	 * Applies the changes of this map to another map. The changes of the
+	 * original map are applied first if the original map is a
+	 * {@code CopyOnWriteMap}, too. Entries that have not been changed are
+	 * not touched.
+	 *
+	 * @param map the map that is modified.
+	 */
+	public synchronized void applyChangesTo(Map<? super K, ? super V> map) {
+		if (original instanceof CopyOnWriteMap)
+			((CopyOnWriteMap<K, V>) original).applyChangesTo(map);
+		for (Object key : removedKeys)
+			map.remove(key);
+		map.putAll(changedEntries);
+	}
+
+	@Override
+	public Set<Map.Entry<K, V>> entrySet() {
+		return new EntrySet();
+	}
+
+	private synchronized List<Map.Entry<K, V>> entries() {
+		List<Map.Entry<K, V>> entries = new ArrayList<Map.Entry<K, V>>(size());
+		for (Map.Entry<K, V> entry : original.entrySet())
+			if (!changedEntries.containsKey(entry.getKey())
+					&& !removedKeys.contains(entry.getKey()))
+				entries.add(new Entry(entry.getKey(), entry.getValue()));
+		for (Map.Entry<K, V> entry : changedEntries.entrySet())
+			entries.add(new Entry(entry.getKey(), entry.getValue()));
+		return entries;
+	}
+
+	private class Entry implements Map.Entry<K, V> {
+		private final K key;
+		private V value;
+
+		Entry(K key, V value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		public K getKey() {
+			return key;
+		}
+
+		public V getValue() {
+			return value;
+		}
+
+		public V setValue(V value) {
+			V previousValue = this.value;
+			put(key, value);
+			this.value = value;
+			return previousValue;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> entry = (Map.Entry<?, ?>) other;
+			return key.equals(entry.getKey()) && value.equals(entry.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return key.hashCode() ^ value.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return key + "=" + value;
+		}
+	}
+
+	private class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+		@Override
+		public Iterator<Map.Entry<K, V>> iterator() {
+			final Iterator<Map.Entry<K, V>> entries = entries().iterator();
+			return new Iterator<Map.Entry<K, V>>() {
+				private Map.Entry<K, V> currentEntry;
+
+				public boolean hasNext() {
+					return entries.hasNext();
+				}
+
+				public Map.Entry<K, V> next() {
+					currentEntry = entries.next();
+					return currentEntry;
+				}
+
+				public void remove() {
+					if (currentEntry == null)
+						throw new IllegalStateException();
+					CopyOnWriteMap.this.remove(currentEntry.getKey());
+					currentEntry = null;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return CopyOnWriteMap.this.size();
+		}
+
+		@Override
+		public void clear() {
+			CopyOnWriteMap.this.clear();
+		}
+	}
+}
@@ -0,0 +1,540 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static java.util.Collections.enumeration;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * {@code Properties} that are based on other properties without copying
+ * them. Changes are stored by the {@code CopyOnWriteProperties} itself and
+ * the original properties are never modified. Therefore creating
+ * {@code CopyOnWriteProperties} is cheap regardless of the number of
+ * original properties and the changes are discarded by simply dropping the
+ * {@code CopyOnWriteProperties}.
+ *
+ * <p>The original properties must not be modified while they are used by
+ * {@code CopyOnWriteProperties}.
+ *
+ * <p>All methods of {@code Hashtable} and {@code Properties} that access
+ * the entries are overridden, because the table that is inherited from
+ * {@code Hashtable} is not used.
+ */
+public class CopyOnWriteProperties extends Properties {
+	private static final long serialVersionUID = 1L;
+
+	private final Properties original;
+	private final Map<Object, Object> changedEntries
+		= new HashMap<Object, Object>();
+	private final Set<Object> removedKeys = new HashSet<Object>();
+	private int numberOfAddedKeys = 0;
+
+	public CopyOnWriteProperties(Properties original) {
+		this.original = original;
+	}
+
+	@Override
+	public synchronized Object get(Object key) {
+		Object value = changedEntries.get(key);
+		if (value != null || removedKeys.contains(key))
+			return value;
+		else
+			return original.get(key);
+	}
+
+	@Override
+	public synchronized Object put(Object key, Object value) {
+		if (value == null)
+			throw new NullPointerException();
+		Object previousValue = get(key);
+		if (previousValue == null && !removedKeys.remove(key))
+			++numberOfAddedKeys;
+		changedEntries.put(key, value);
+		return previousValue;
+	}
+
+	@Override
+	public synchronized Object remove(Object key) {
+		Object previousValue = get(key);
+		if (previousValue != null) {
+			changedEntries.remove(key);
+			if (original.containsKey(key))
+				removedKeys.add(key);
+			else
+				--numberOfAddedKeys;
+		}
+		return previousValue;
+	}
+
+	@Override
+	public synchronized void putAll(Map<?, ?> map) {
+		for (Map.Entry<?, ?> entry : map.entrySet())
+			put(entry.getKey(), entry.getValue());
+	}
+
+	@Override
+	public synchronized void clear() {
+		changedEntries.clear();
+		numberOfAddedKeys = 0;
+		synchronized (original) {
+			removedKeys.addAll(original.keySet());
+		}
+	}
+
+	@Override
+	public synchronized int size() {
+		return original.size() - removedKeys.size() + numberOfAddedKeys;
+	}
+
+	@Override
+	public synchronized boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public synchronized boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	@Override
+	public synchronized boolean contains(Object value) {
+		if (value == null)
+			throw new NullPointerException();
+		for (Map.Entry<Object, Object> entry : entries())
+			if (value.equals(entry.getValue()))
+				return true;
+		return false;
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		return contains(value);
+	}
+
+	@Override
+	public synchronized Enumeration<Object> keys() {
+		return enumeration(keySet());
+	}
+
+	@Override
+	public synchronized Enumeration<Object> elements() {
+		return enumeration(values());
+	}
+
+	@Override
+	public Set<Object> keySet() {
+		return new KeySet();
+	}
+
+	@Override
+	public Collection<Object> values() {
+		return new Values();
+	}
+
+	@Override
+	public Set<Map.Entry<Object, Object>> entrySet() {
+		return new EntrySet();
+	}
+
+	@Override
+	public synchronized String getProperty(String key) {
+		Object value = get(key);
+		if (value instanceof String)
+			return (String) value;
+		else if (changedEntries.containsKey(key) || removedKeys.contains(key))
+			return null;
+		else
+			return original.getProperty(key);
+	}
+
+	@Override
+	public Enumeration<?> propertyNames() {
+		return snapshot().propertyNames();
+	}
+
+	@IgnoreJRERequirement
+	public Set<String> stringPropertyNames() {
+		return snapshot().stringPropertyNames();
+	}
+
+	@Override
+	public void list(PrintStream out) {
+		snapshot().list(out);
+	}
+
+	@Override
+	public void list(PrintWriter out) {
+		snapshot().list(out);
+	}
+
+	@Override
+	@Deprecated
+	public void save(OutputStream out, String comments) {
+		snapshot().save(out, comments);
+	}
+
+	@Override
+	public void store(OutputStream out, String comments) throws IOException {
+		snapshot().store(out, comments);
+	}
+
+	@IgnoreJRERequirement
+	public void store(Writer writer, String comments) throws IOException {
+		snapshot().store(writer, comments);
+	}
+
+	@Override
+	public void storeToXML(OutputStream os, String comment)
+			throws IOException {
+		snapshot().storeToXML(os, comment);
+	}
+
+	@Override
+	public void storeToXML(OutputStream os, String comment, String encoding)
+			throws IOException {
+		snapshot().storeToXML(os, comment, encoding);
+	}
+
+	@Override
+	public synchronized Object clone() {
+		return snapshot();
+	}
+
+	@Override
+	public synchronized boolean equals(Object other) {
+		return snapshot().equals(other);
+	}
+
+	@Override
+	public synchronized int hashCode() {
+		return snapshot().hashCode();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return snapshot().toString();
+	}
+
+	private Object writeReplace() {
+		return snapshot();
+	}
+
+	//Methods of Java 8's Map interface that are overridden by Hashtable
+
+	public synchronized Object getOrDefault(Object key, Object defaultValue) {
+		Object value = get(key);
+		return value == null ? defaultValue : value;
+	}
+
+	public synchronized Object putIfAbsent(Object key, Object value) {
+		Object currentValue = get(key);
+		if (currentValue == null)
+			put(key, value);
+		return currentValue;
+	}
+
+	public synchronized boolean remove(Object key, Object value) {
+		Object currentValue = get(key);
+		if (currentValue != null && currentValue.equals(value)) {
+			remove(key);
+			return true;
+		} else
+			return false;
+	}
+
+	public synchronized boolean replace(Object key, Object oldValue,
+			Object newValue) {
+		Object currentValue = get(key);
+		if (currentValue != null && currentValue.equals(oldValue)) {
+			put(key, newValue);
+			return true;
+		} else
+			return false;
+	}
+
+	public synchronized Object replace(Object key, Object value) {
+		return containsKey(key) ? put(key, value) : null;
+	}
+
+	@IgnoreJRERequirement
+	public synchronized void forEach(
+			BiConsumer<? super Object, ? super Object> action) {
+		for (Map.Entry<Object, Object> entry : entries())
+			action.accept(entry.getKey(), entry.getValue());
+	}
+
+	@IgnoreJRERequirement
+	public synchronized void replaceAll(
+			BiFunction<? super Object, ? super Object, ?> function) {
+		for (Map.Entry<Object, Object> entry : entries())
+			put(entry.getKey(),
+				function.apply(entry.getKey(), entry.getValue()));
+	}
+
+	@IgnoreJRERequirement
+	public synchronized Object computeIfAbsent(Object key,
+			Function<? super Object, ?> mappingFunction) {
+		Object value = get(key);
+		if (value == null) {
+			value = mappingFunction.apply(key);
+			if (value != null)
+				put(key, value);
+		}
+		return value;
+	}
+
+	@IgnoreJRERequirement
+	public synchronized Object computeIfPresent(Object key,
+			BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+		Object value = get(key);
+		return value == null
+			? null
+			: replaceOrRemove(key, remappingFunction.apply(key, value));
+	}
+
+	@IgnoreJRERequirement
+	public synchronized Object compute(Object key,
+			BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+		return replaceOrRemove(key,
+			remappingFunction.apply(key, get(key)));
+	}
+
+	@IgnoreJRERequirement
+	public synchronized Object merge(Object key, Object value,
+			BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+		if (value == null)
+			throw new NullPointerException();
+		Object currentValue = get(key);
+		return replaceOrRemove(key, currentValue == null
+			? value
+			: remappingFunction.apply(currentValue, value));
+	}
+
+	private Object replaceOrRemove(Object key, Object newValue) {
+		if (newValue == null)
+			remove(key);
+		else
+			put(key, newValue);
+		return newValue;
+	}
+
+	/**
+	 * Returns whether these properties differ from the original properties.
+	 *
+	 * @return {@code true} if a property has been set or removed.
+	 */
+	public synchronized boolean hasChanges() {
+		return !changedEntries.isEmpty() || !removedKeys.isEmpty();
+	}
+
+	/**
+	 * Applies the changes of these properties to other properties. Entries
+	 * that have not been changed are not touched.
+	 *
+	 * @param properties the properties that are modified.
+	 */
+	public synchronized void applyChangesTo(Properties properties) {
+		for (Object key : removedKeys)
+			properties.remove(key);
+		properties.putAll(changedEntries);
+	}
+
+	private synchronized Properties snapshot() {
+		//the clone has the same defaults as the original properties
+		Properties snapshot = (Properties) original.clone();
+		for (Object key : removedKeys)
+			snapshot.remove(key);
+		snapshot.putAll(changedEntries);
+		return snapshot;
+	}
+
+	private synchronized List<Map.Entry<Object, Object>> entries() {
+		List<Map.Entry<Object, Object>> entries
+			= new ArrayList<Map.Entry<Object, Object>>(size());
+		//Hashtable's iterators are only safe while the table is locked
+		synchronized (original) {
+			for (Map.Entry<Object, Object> entry : original.entrySet())
+				if (!changedEntries.containsKey(entry.getKey())
+						&& !removedKeys.contains(entry.getKey()))
+					entries.add(new Entry(entry.getKey(), entry.getValue()));
+		}
+		for (Map.Entry<Object, Object> entry : changedEntries.entrySet())
+			entries.add(new Entry(entry.getKey(), entry.getValue()));
+		return entries;
+	}
+
+	private class Entry implements Map.Entry<Object, Object> {
+		private final Object key;
+		private Object value;
+
+		Entry(Object key, Object value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		public Object getKey() {
+			return key;
+		}
+
+		public Object getValue() {
+			return value;
+		}
+
+		public Object setValue(Object value) {
+			Object previousValue = this.value;
+			put(key, value);
+			this.value = value;
+			return previousValue;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Map.Entry))
+				return false;
+			Map.Entry<?, ?> entry = (Map.Entry<?, ?>) other;
+			return key.equals(entry.getKey()) && value.equals(entry.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return key.hashCode() ^ value.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return key + "=" + value;
+		}
+	}
+
+	private class EntryIterator implements Iterator<Map.Entry<Object, Object>> {
+		private final Iterator<Map.Entry<Object, Object>> entries
+			= entries().iterator();
+		private Map.Entry<Object, Object> currentEntry;
+
+		public boolean hasNext() {
+			return entries.hasNext();
+		}
+
+		public Map.Entry<Object, Object> next() {
+			currentEntry = entries.next();
+			return currentEntry;
+		}
+
+		public void remove() {
+			if (currentEntry == null)
+				throw new IllegalStateException();
+			CopyOnWriteProperties.this.remove(currentEntry.getKey());
+			currentEntry = null;
+		}
+	}
+
+	private class EntrySet extends AbstractSet<Map.Entry<Object, Object>> {
+		@Override
+		public Iterator<Map.Entry<Object, Object>> iterator() {
+			return new EntryIterator();
+		}
+
+		@Override
+		public int size() {
+			return CopyOnWriteProperties.this.size();
+		}
+
+		@Override
+		public void clear() {
+			CopyOnWriteProperties.this.clear();
+		}
+	}
+
+	private class KeySet extends AbstractSet<Object> {
+		@Override
+		public Iterator<Object> iterator() {
+			final EntryIterator entries = new EntryIterator();
+			return new Iterator<Object>() {
+				public boolean hasNext() {
+					return entries.hasNext();
+				}
+
+				public Object next() {
+					return entries.next().getKey();
+				}
+
+				public void remove() {
+					entries.remove();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return CopyOnWriteProperties.this.size();
+		}
+
+		@Override
+		public boolean contains(Object key) {
+			return containsKey(key);
+		}
+
+		@Override
+		public boolean remove(Object key) {
+			return CopyOnWriteProperties.this.remove(key) != null;
+		}
+
+		@Override
+		public void clear() {
+			CopyOnWriteProperties.this.clear();
+		}
+	}
+
+	private class Values extends AbstractCollection<Object> {
+		@Override
+		public Iterator<Object> iterator() {
+			final EntryIterator entries = new EntryIterator();
+			return new Iterator<Object>() {
+				public boolean hasNext() {
+					return entries.hasNext();
+				}
+
+				public Object next() {
+					return entries.next().getValue();
+				}
+
+				public void remove() {
+					entries.remove();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return CopyOnWriteProperties.this.size();
+		}
+
+		@Override
+		public boolean contains(Object value) {
+			return containsValue(value);
+		}
+
+		@Override
+		public void clear() {
+			CopyOnWriteProperties.this.clear();
+		}
+	}
+}
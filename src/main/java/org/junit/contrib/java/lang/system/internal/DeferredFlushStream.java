@@ -0,0 +1,67 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static java.lang.System.arraycopy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Buffers the bytes that are written to another stream. Unlike a
+ * {@code BufferedOutputStream} it ignores {@link #flush()}, because a
+ * {@code PrintStream} with auto flush would flush it after every line. The
+ * buffer is only written to the other stream by {@link #writeBuffer()} or
+ * when it is full. The order of the bytes is preserved.
+ */
+class DeferredFlushStream extends OutputStream {
+	private static final int BUFFER_SIZE = 8192;
+
+	private final OutputStream out;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int count = 0;
+
+	DeferredFlushStream(OutputStream out) {
+		this.out = out;
+	}
+
+	@Override
+	public synchronized void write(int b) throws IOException {
+		if (count == buffer.length)
+			writeBufferedBytes();
+		buffer[count++] = (byte) b;
+	}
+
+	@Override
+	public synchronized void write(byte[] bytes, int offset, int len)
+			throws IOException {
+		if (len > buffer.length - count)
+			writeBufferedBytes();
+		if (len >= buffer.length)
+			out.write(bytes, offset, len);
+		else {
+			arraycopy(bytes, offset, buffer, count, len);
+			count += len;
+		}
+	}
+
+	@Override
+	public void flush() {
+		//deferred until writeBuffer() is called
+	}
+
+	/**
+	 * Writes the buffered bytes to the other stream and flushes it.
+	 *
+	 * @throws IOException if the other stream throws an exception.
+	 */
+	synchronized void writeBuffer() throws IOException {
+		writeBufferedBytes();
+		out.flush();
+	}
+
+	private void writeBufferedBytes() throws IOException {
+		if (count > 0) {
+			out.write(buffer, 0, count);
+			count = 0;
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static java.lang.Math.min;
+import static java.nio.charset.CodingErrorAction.REPLACE;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.util.Iterator;
+
+/**
+ * Reads lines that are taken from an {@code Iterator}. The lines are
+ * requested and encoded when they are read. Therefore the memory that is
+ * needed does not depend on the number of lines. All lines are encoded by
+ * a single encoder, so that a byte order mark is only written once.
+ */
+public class EncodedLinesInputStream extends InputStream {
+	private static final int BUFFER_SIZE = 8192;
+
+	private final Iterator<String> lines;
+	private final String lineSeparator;
+	private final CharsetEncoder encoder;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	private CharBuffer currentText = CharBuffer.wrap("");
+	private boolean lineSeparatorPending = false;
+	private boolean flushed = false;
+
+	public EncodedLinesInputStream(Iterator<String> lines, Charset charset,
+			String lineSeparator) {
+		this.lines = lines;
+		this.lineSeparator = lineSeparator;
+		this.encoder = charset.newEncoder()
+			.onMalformedInput(REPLACE)
+			.onUnmappableCharacter(REPLACE);
+		buffer.flip();
+	}
+
+	@Override
+	public int read() {
+		if (!buffer.hasRemaining() && !fillBuffer())
+			return -1;
+		return buffer.get() & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] bytes, int offset, int len) {
+		if (len == 0)
+			return 0;
+		else if (!buffer.hasRemaining() && !fillBuffer())
+			return -1;
+		int numberOfBytes = min(len, buffer.remaining());
+		buffer.get(bytes, offset, numberOfBytes);
+		return numberOfBytes;
+	}
+
+	@Override
+	public int available() {
+		return buffer.remaining();
+	}
+
+	private boolean fillBuffer() {
+		buffer.clear();
+		while (true) {
+			if (!currentText.hasRemaining()) {
+				String text = nextText();
+				if (text == null) {
+					finishEncoding();
+					break;
+				}
+				currentText = CharBuffer.wrap(text);
+			}
+			CoderResult result = encoder.encode(currentText, buffer, false);
+			if (result.isOverflow())
+				break;
+			else if (currentText.hasRemaining() && !replaceHighSurrogate())
+				break;
+		}
+		buffer.flip();
+		return buffer.hasRemaining();
+	}
+
+	private boolean replaceHighSurrogate() {
+		//A high surrogate at the end of a text is malformed because neither
+		//lines nor line separators start with a low surrogate.
+		byte[] replacement = encoder.replacement();
+		if (buffer.remaining() < replacement.length)
+			return false;
+		buffer.put(replacement);
+		currentText.position(currentText.limit());
+		return true;
+	}
+
+	private void finishEncoding() {
+		if (!flushed) {
+			CoderResult result = encoder.encode(currentText, buffer, true);
+			if (result.isUnderflow())
+				result = encoder.flush(buffer);
+			flushed = result.isUnderflow();
+		}
+	}
+
+	private String nextText() {
+		if (lineSeparatorPending) {
+			lineSeparatorPending = false;
+			return lineSeparator;
+		} else if (lines.hasNext()) {
+			lineSeparatorPending = true;
+			return lines.next();
+		} else
+			return null;
+	}
+}
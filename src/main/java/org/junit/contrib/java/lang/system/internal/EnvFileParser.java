@@ -0,0 +1,110 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads environment variables from a {@code .env} file line by line. Every
+ * line is a variable assignment {@code NAME=value}, a comment that starts
+ * with {@code #} or an empty line. An assignment may start with
+ * {@code export}. The value may be enclosed in single quotes (taken
+ * literally) or double quotes (supports the escape sequences {@code \n},
+ * {@code \r}, {@code \t}, {@code \"} and {@code \\}). Unquoted values end
+ * at a {@code #} that follows whitespace.
+ */
+public class EnvFileParser {
+	private static final String EXPORT = "export ";
+
+	private EnvFileParser() {
+	}
+
+	public static Map<String, String> parse(Reader reader) throws IOException {
+		Map<String, String> variables = new LinkedHashMap<String, String>();
+		BufferedReader lines = new BufferedReader(reader);
+		String line;
+		for (int lineNumber = 1; (line = lines.readLine()) != null;
+				++lineNumber)
+			parseLine(line.trim(), lineNumber, variables);
+		return variables;
+	}
+
+	private static void parseLine(String line, int lineNumber,
+			Map<String, String> variables) throws IOException {
+		if (line.length() == 0 || line.startsWith("#"))
+			return;
+		if (line.startsWith(EXPORT))
+			line = line.substring(EXPORT.length());
+		int indexOfEqualsSign = line.indexOf('=');
+		if (indexOfEqualsSign <= 0)
+			throw new IOException("Line " + lineNumber
+				+ " is not a variable assignment.");
+		String name = line.substring(0, indexOfEqualsSign).trim();
+		String value = line.substring(indexOfEqualsSign + 1).trim();
+		variables.put(name, parseValue(value, lineNumber));
+	}
+
+	private static String parseValue(String value, int lineNumber)
+			throws IOException {
+		if (value.startsWith("'"))
+			return parseSingleQuotedValue(value, lineNumber);
+		else if (value.startsWith("\""))
+			return parseDoubleQuotedValue(value, lineNumber);
+		else
+			return parseUnquotedValue(value);
+	}
+
+	private static String parseSingleQuotedValue(String value,
+			int lineNumber) throws IOException {
+		int end = value.indexOf('\'', 1);
+		if (end == -1)
+			throw unterminatedQuote(lineNumber);
+		return value.substring(1, end);
+	}
+
+	private static String parseDoubleQuotedValue(String value,
+			int lineNumber) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 1; i < value.length(); ++i) {
+			char c = value.charAt(i);
+			if (c == '"')
+				return sb.toString();
+			else if (c == '\\' && i + 1 < value.length())
+				sb.append(unescape(value.charAt(++i)));
+			else
+				sb.append(c);
+		}
+		throw unterminatedQuote(lineNumber);
+	}
+
+	private static String unescape(char c) {
+		switch (c) {
+			case 'n':
+				return "\n";
+			case 'r':
+				return "\r";
+			case 't':
+				return "\t";
+			case '"':
+			case '\\':
+				return String.valueOf(c);
+			default:
+				return "\\" + c;
+		}
+	}
+
+	private static String parseUnquotedValue(String value) {
+		for (int i = 1; i < value.length(); ++i)
+			if (value.charAt(i) == '#'
+					&& Character.isWhitespace(value.charAt(i - 1)))
+				return value.substring(0, i).trim();
+		return value.startsWith("#") ? "" : value;
+	}
+
+	private static IOException unterminatedQuote(int lineNumber) {
+		return new IOException("The value in line " + lineNumber
+			+ " has no closing quote.");
+	}
+}
@@ -0,0 +1,146 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static java.lang.Class.forName;
+import static java.lang.System.getenv;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+
+/**
+ * Provides the internal maps of the JDK that store the environment
+ * variables. The maps are looked up by reflection when they are needed for
+ * the first time. Afterwards the same maps are returned, because the JDK
+ * never replaces them.
+ */
+public class EnvironmentVariableMaps {
+	private static volatile Map<String, String> editableMapOfVariables;
+	private static volatile boolean caseInsensitiveEnvironmentResolved
+		= false;
+	//safely published by caseInsensitiveEnvironmentResolved
+	private static Map<String, String> theCaseInsensitiveEnvironment;
+
+	private EnvironmentVariableMaps() {
+	}
+
+	/**
+	 * Returns the modifiable map that is wrapped by the unmodifiable map
+	 * {@code System.getenv()}.
+	 *
+	 * @return the modifiable map of the environment variables.
+	 */
+	public static Map<String, String> getEditableMapOfVariables() {
+		Map<String, String> map = editableMapOfVariables;
+		return map == null ? resolveEditableMapOfVariables() : map;
+	}
+
+	private static synchronized Map<String, String> resolveEditableMapOfVariables() {
+		if (editableMapOfVariables == null)
+			editableMapOfVariables = readEditableMapOfVariables();
+		return editableMapOfVariables;
+	}
+
+	private static Map<String, String> readEditableMapOfVariables() {
+		Class<?> classOfMap = getenv().getClass();
+		try {
+			return getFieldValue(classOfMap, getenv(), "m");
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException("System Rules cannot access the field"
+				+ " 'm' of the map System.getenv().", e);
+		} catch (NoSuchFieldException e) {
+			throw new RuntimeException("System Rules expects System.getenv() to"
+				+ " have a field 'm' but it has not.", e);
+		}
+	}
+
+	/**
+	 * Replaces the map that is wrapped by the unmodifiable map
+	 * {@code System.getenv()}. On Linux and macOS this map is used by
+	 * {@code System.getenv(String)}, too. The original map can still be
+	 * obtained by {@link #getEditableMapOfVariables()}.
+	 *
+	 * @param map the map that is wrapped by {@code System.getenv()}.
+	 */
+	public static void setMapOfSystemGetenv(Map<String, String> map) {
+		getEditableMapOfVariables(); //resolve the original map first
+		try {
+			setFieldValue(getenv().getClass(), getenv(), "m", map);
+			resetCachedViewsOfSystemGetenv();
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException("System Rules cannot modify the field"
+				+ " 'm' of the map System.getenv().", e);
+		} catch (NoSuchFieldException e) {
+			throw new RuntimeException("System Rules expects System.getenv() to"
+				+ " have a field 'm' but it has not.", e);
+		}
+	}
+
+	//the views of the unmodifiable map are views of the replaced map
+	private static void resetCachedViewsOfSystemGetenv()
+			throws IllegalAccessException {
+		for (String name : new String[] { "keySet", "entrySet", "values" })
+			try {
+				setFieldValue(getenv().getClass(), getenv(), name, null);
+			} catch (NoSuchFieldException e) {
+				//this implementation does not cache the view
+			}
+	}
+
+	/**
+	 * Returns the map that is used by {@code System.getenv(String)} on
+	 * Windows. The names of environment variables are case-insensitive in
+	 * Windows. Therefore it stores the variables in a {@code TreeMap} named
+	 * theCaseInsensitiveEnvironment.
+	 *
+	 * @return the case-insensitive map of the environment variables or
+	 * {@code null} if there is no such map (e.g. on Linux and macOS).
+	 */
+	public static Map<String, String> getTheCaseInsensitiveEnvironment() {
+		if (caseInsensitiveEnvironmentResolved)
+			return theCaseInsensitiveEnvironment;
+		else
+			return resolveTheCaseInsensitiveEnvironment();
+	}
+
+	private static synchronized Map<String, String> resolveTheCaseInsensitiveEnvironment() {
+		if (!caseInsensitiveEnvironmentResolved) {
+			theCaseInsensitiveEnvironment = readTheCaseInsensitiveEnvironment();
+			caseInsensitiveEnvironmentResolved = true;
+		}
+		return theCaseInsensitiveEnvironment;
+	}
+
+	private static Map<String, String> readTheCaseInsensitiveEnvironment() {
+		try {
+			Class<?> processEnvironment = forName("java.lang.ProcessEnvironment");
+			return getFieldValue(
+				processEnvironment, null, "theCaseInsensitiveEnvironment");
+		} catch (ClassNotFoundException e) {
+			throw new RuntimeException("System Rules expects the existence of"
+				+ " the class java.lang.ProcessEnvironment but it does not"
+				+ " exist.", e);
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException("System Rules cannot access the static"
+				+ " field 'theCaseInsensitiveEnvironment' of the class"
+				+ " java.lang.ProcessEnvironment.", e);
+		} catch (NoSuchFieldException e) {
+			//this field is only available for Windows
+			return null;
+		}
+	}
+
+	private static Map<String, String> getFieldValue(Class<?> klass,
+			Object object, String name)
+			throws NoSuchFieldException, IllegalAccessException {
+		Field field = klass.getDeclaredField(name);
+		field.setAccessible(true);
+		return (Map<String, String>) field.get(object);
+	}
+
+	private static void setFieldValue(Class<?> klass, Object object,
+			String name, Object value)
+			throws NoSuchFieldException, IllegalAccessException {
+		Field field = klass.getDeclaredField(name);
+		field.setAccessible(true);
+		field.set(object, value);
+	}
+}
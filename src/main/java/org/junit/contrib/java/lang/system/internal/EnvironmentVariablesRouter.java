@@ -0,0 +1,189 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static org.junit.contrib.java.lang.system.internal.EnvironmentVariableMaps.getEditableMapOfVariables;
+import static org.junit.contrib.java.lang.system.internal.EnvironmentVariableMaps.setMapOfSystemGetenv;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.runners.model.Statement;
+
+/**
+ * Replaces the map of environment variables behind {@code System.getenv()}
+ * with a map that routes every access to the variables that are bound to
+ * the current thread. Threads without bound variables access the original
+ * environment variables. The routing map is only installed while at least
+ * one binding exists.
+ */
+public class EnvironmentVariablesRouter extends ThreadScope<Map<String, String>> {
+	private static final EnvironmentVariablesRouter ROUTER
+		= new EnvironmentVariablesRouter();
+
+	private EnvironmentVariablesRouter() {
+	}
+
+	/**
+	 * Creates a copy of the environment variables of the current thread.
+	 * The copy of bound variables is cheap, because only changes are stored
+	 * by it. The global environment variables are copied completely,
+	 * because they may be modified by other threads while the copy is used.
+	 *
+	 * @return the new copy.
+	 */
+	public static CopyOnWriteMap<String, String> copyVariablesOfCurrentThread() {
+		Map<String, String> variables = ROUTER.get();
+		if (variables == null)
+			variables = new HashMap<String, String>(getEditableMapOfVariables());
+		return new CopyOnWriteMap<String, String>(variables);
+	}
+
+	/**
+	 * Creates a statement that lets the current thread and the threads that
+	 * are created by it use the specified environment variables while the
+	 * base statement is evaluated.
+	 *
+	 * @param variables the variables that are returned by
+	 * {@code System.getenv()}.
+	 * @param base the statement that is evaluated.
+	 * @return the new statement.
+	 */
+	public static Statement createThreadScopedStatement(
+			final Map<String, String> variables, final Statement base) {
+		return new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				Binding<Map<String, String>> binding = ROUTER.bind(variables);
+				try {
+					base.evaluate();
+				} finally {
+					ROUTER.release(binding);
+				}
+			}
+		};
+	}
+
+	private Map<String, String> variablesOfCurrentThread() {
+		Map<String, String> variables = get();
+		return variables == null ? getEditableMapOfVariables() : variables;
+	}
+
+	@Override
+	void install() {
+		setMapOfSystemGetenv(new RoutingMap());
+	}
+
+	@Override
+	void uninstall() {
+		setMapOfSystemGetenv(getEditableMapOfVariables());
+	}
+
+	private static class RoutingMap extends AbstractMap<String, String> {
+		@Override
+		public String get(Object key) {
+			return source().get(key);
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return source().containsKey(key);
+		}
+
+		@Override
+		public boolean containsValue(Object value) {
+			return source().containsValue(value);
+		}
+
+		@Override
+		public String put(String key, String value) {
+			return source().put(key, value);
+		}
+
+		@Override
+		public String remove(Object key) {
+			return source().remove(key);
+		}
+
+		@Override
+		public void putAll(Map<? extends String, ? extends String> map) {
+			source().putAll(map);
+		}
+
+		@Override
+		public void clear() {
+			source().clear();
+		}
+
+		@Override
+		public int size() {
+			return source().size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return source().isEmpty();
+		}
+
+		//keySet() and values() of AbstractMap are views of entrySet()
+		@Override
+		public Set<Map.Entry<String, String>> entrySet() {
+			return new RoutingEntrySet();
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return source().equals(other);
+		}
+
+		@Override
+		public int hashCode() {
+			return source().hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return source().toString();
+		}
+
+		private Map<String, String> source() {
+			return ROUTER.variablesOfCurrentThread();
+		}
+	}
+
+	//Collections.unmodifiableMap caches the entry set. Therefore it must
+	//route every access, too.
+	private static class RoutingEntrySet
+			extends AbstractSet<Map.Entry<String, String>> {
+		@Override
+		public Iterator<Map.Entry<String, String>> iterator() {
+			return source().iterator();
+		}
+
+		@Override
+		public int size() {
+			return source().size();
+		}
+
+		@Override
+		public boolean contains(Object entry) {
+			return source().contains(entry);
+		}
+
+		@Override
+		public boolean remove(Object entry) {
+			return source().remove(entry);
+		}
+
+		@Override
+		public void clear() {
+			source().clear();
+		}
+
+		private Set<Map.Entry<String, String>> source() {
+			return ROUTER.variablesOfCurrentThread().entrySet();
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.CLASS;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Marks methods that use an API of a newer Java version than Java 5. Such
+ * methods override methods of a newer Java version and therefore they are
+ * only called if the newer API is available. The signature check of the
+ * build ignores them.
+ */
+@Documented
+@Retention(CLASS)
+@Target({ METHOD, TYPE })
+public @interface IgnoreJRERequirement {
+}
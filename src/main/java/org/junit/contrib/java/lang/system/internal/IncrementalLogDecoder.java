@@ -0,0 +1,122 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static java.nio.charset.CodingErrorAction.REPLACE;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+
+/**
+ * Decodes the bytes of a {@link LogBuffer} and caches the text. Only bytes
+ * that have been written since the last call of {@link #decode(LogBuffer)}
+ * are decoded. Bytes of an incomplete multi-byte character are kept until
+ * the character is completed by the next bytes. Until then the text ends
+ * with the replacement character, like the text of
+ * {@code new String(bytes, charset)}.
+ */
+class IncrementalLogDecoder {
+	private static final int CHUNK_SIZE = 8192;
+
+	private final CharsetDecoder decoder;
+	private final CharsetDecoder decoderOfIncompleteCharacter;
+	private final ByteBuffer bytes = ByteBuffer.allocate(CHUNK_SIZE);
+	private final CharBuffer chars = CharBuffer.allocate(CHUNK_SIZE);
+	private final StringBuilder text = new StringBuilder();
+	private LogBuffer log;
+	private long startPosition;
+	private long position;
+	private String cachedText = "";
+	private long version = 0;
+
+	IncrementalLogDecoder(Charset charset) {
+		decoder = newDecoder(charset);
+		decoderOfIncompleteCharacter = newDecoder(charset);
+	}
+
+	private static CharsetDecoder newDecoder(Charset charset) {
+		return charset.newDecoder()
+			.onMalformedInput(REPLACE)
+			.onUnmappableCharacter(REPLACE);
+	}
+
+	/**
+	 * Returns the text of the log.
+	 *
+	 * @param log the log that is decoded.
+	 * @return the text of the log.
+	 */
+	synchronized String decode(LogBuffer log) {
+		synchronized (log) {
+			if (log != this.log || log.getStartPosition() != startPosition)
+				restartWith(log);
+			if (position < log.getEndPosition()) {
+				decodeNewBytes();
+				cachedText = text + decodeIncompleteCharacter();
+				++version;
+			}
+			return cachedText;
+		}
+	}
+
+	/**
+	 * Returns a number that changes whenever the text that is returned by
+	 * {@link #decode(LogBuffer)} changes.
+	 *
+	 * @return the version of the text.
+	 */
+	synchronized long getVersion() {
+		return version;
+	}
+
+	private void restartWith(LogBuffer log) {
+		this.log = log;
+		startPosition = log.getStartPosition();
+		position = startPosition;
+		decoder.reset();
+		bytes.clear();
+		text.setLength(0);
+		cachedText = "";
+		++version;
+	}
+
+	private void decodeNewBytes() {
+		int len;
+		while ((len = log.read(position, bytes.array(),
+				bytes.arrayOffset() + bytes.position(), bytes.remaining())) != -1) {
+			position += len;
+			bytes.position(bytes.position() + len);
+			bytes.flip();
+			decodeBytes();
+			bytes.compact();
+		}
+	}
+
+	//the bytes stay in the buffer, because the next bytes may complete the
+	//character
+	private String decodeIncompleteCharacter() {
+		if (bytes.position() == 0)
+			return "";
+		ByteBuffer incompleteCharacter = bytes.duplicate();
+		incompleteCharacter.flip();
+		try {
+			return decoderOfIncompleteCharacter.decode(incompleteCharacter)
+				.toString();
+		} catch (CharacterCodingException e) {
+			throw new IllegalStateException(
+				"The decoder replaces malformed input.", e);
+		}
+	}
+
+	private void decodeBytes() {
+		CoderResult result;
+		do {
+			result = decoder.decode(bytes, chars, false);
+			chars.flip();
+			text.append(chars);
+			chars.clear();
+		} while (result.isOverflow());
+	}
+}
@@ -0,0 +1,167 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static java.lang.Math.min;
+import static java.lang.System.arraycopy;
+import static java.lang.Thread.currentThread;
+import static java.util.concurrent.locks.LockSupport.park;
+import static java.util.concurrent.locks.LockSupport.unpark;
+
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+/**
+ * An {@code InputStream} whose bytes are written while it is read. The bytes
+ * are passed by a ring buffer without locks. It supports a single thread that
+ * writes and a single thread that reads at the same time. A thread that
+ * waits for the other thread is parked and unparked as soon as the other
+ * thread made progress.
+ */
+public class LiveInputStream extends InputStream {
+	private static final int CAPACITY = 1 << 16;
+	private static final int MASK = CAPACITY - 1;
+
+	private final byte[] ring = new byte[CAPACITY];
+	//positions only grow and are written by a single thread each
+	private volatile long readPosition = 0;
+	private volatile long writePosition = 0;
+	private volatile boolean closed = false;
+	private volatile Thread waitingReader;
+	private volatile Thread waitingWriter;
+
+	/**
+	 * Writes bytes that can be read afterwards. Waits for the reader if the
+	 * ring buffer is full.
+	 *
+	 * @param bytes the bytes that are written.
+	 * @param offset the index of the first byte that is written.
+	 * @param len the number of bytes that are written.
+	 * @throws InterruptedIOException if the thread is interrupted while it
+	 * waits for the reader.
+	 * @throws IllegalStateException if the stream has been closed.
+	 */
+	public void write(byte[] bytes, int offset, int len)
+			throws InterruptedIOException {
+		while (len > 0) {
+			if (closed)
+				throw new IllegalStateException(
+					"The stream has been closed.");
+			long position = writePosition;
+			int free = (int) (CAPACITY - (position - readPosition));
+			if (free == 0) {
+				waitForReader(position);
+				continue;
+			}
+			int numberOfBytes = min(len, free);
+			copyToRing(bytes, offset, position, numberOfBytes);
+			writePosition = position + numberOfBytes;
+			unparkIfWaiting(waitingReader);
+			offset += numberOfBytes;
+			len -= numberOfBytes;
+		}
+	}
+
+	private void copyToRing(byte[] bytes, int offset, long position,
+			int len) {
+		int index = (int) (position & MASK);
+		int lengthUntilEndOfRing = min(len, CAPACITY - index);
+		arraycopy(bytes, offset, ring, index, lengthUntilEndOfRing);
+		arraycopy(bytes, offset + lengthUntilEndOfRing, ring, 0,
+			len - lengthUntilEndOfRing);
+	}
+
+	@Override
+	public int read() throws InterruptedIOException {
+		byte[] b = new byte[1];
+		if (read(b, 0, 1) == -1)
+			return -1;
+		else
+			return b[0] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] bytes, int offset, int len)
+			throws InterruptedIOException {
+		if (len == 0)
+			return 0;
+		long position = readPosition;
+		int available;
+		while (true) {
+			//all bytes are visible if closed is read before writePosition
+			boolean endOfInput = closed;
+			available = (int) (writePosition - position);
+			if (available > 0)
+				break;
+			else if (endOfInput)
+				return -1;
+			else
+				waitForWriter(position);
+		}
+		int numberOfBytes = min(len, available);
+		copyFromRing(position, bytes, offset, numberOfBytes);
+		readPosition = position + numberOfBytes;
+		unparkIfWaiting(waitingWriter);
+		return numberOfBytes;
+	}
+
+	private void copyFromRing(long position, byte[] bytes, int offset,
+			int len) {
+		int index = (int) (position & MASK);
+		int lengthUntilEndOfRing = min(len, CAPACITY - index);
+		arraycopy(ring, index, bytes, offset, lengthUntilEndOfRing);
+		arraycopy(ring, 0, bytes, offset + lengthUntilEndOfRing,
+			len - lengthUntilEndOfRing);
+	}
+
+	private void waitForReader(long position) throws InterruptedIOException {
+		waitingWriter = currentThread();
+		try {
+			//the reader unparks us if it reads after this check
+			if (position - readPosition == CAPACITY && !closed)
+				parkInterruptibly();
+		} finally {
+			waitingWriter = null;
+		}
+	}
+
+	private void waitForWriter(long position) throws InterruptedIOException {
+		waitingReader = currentThread();
+		try {
+			//the writer unparks us if it writes after this check
+			if (writePosition == position && !closed)
+				parkInterruptibly();
+		} finally {
+			waitingReader = null;
+		}
+	}
+
+	private void parkInterruptibly() throws InterruptedIOException {
+		park();
+		if (Thread.interrupted())
+			throw new InterruptedIOException();
+	}
+
+	private void unparkIfWaiting(Thread thread) {
+		if (thread != null)
+			unpark(thread);
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	@Override
+	public int available() {
+		return (int) (writePosition - readPosition);
+	}
+
+	/**
+	 * Signals the end of the input. Bytes that have been written before can
+	 * still be read. Afterwards {@code read} returns -1.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		unparkIfWaiting(waitingReader);
+		unparkIfWaiting(waitingWriter);
+	}
+}
@@ -0,0 +1,167 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Stores the bytes that are logged by a {@link LogPrintStream}.
+ *
+ * <p>Every byte that is written to a {@code LogBuffer} has a position. The
+ * first byte has the position {@code 0}, the next byte the position
+ * {@code 1} and so on. The positions are not affected by {@link #reset()}.
+ * A buffer may not store all bytes that have been written to it. The stored
+ * bytes are the bytes from {@link #getStartPosition()} (inclusive) to
+ * {@link #getEndPosition()} (exclusive).
+ */
+abstract class LogBuffer extends OutputStream {
+	private static final int COPY_BUFFER_SIZE = 8192;
+
+	@Override
+	public void write(int b) {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public abstract void write(byte[] buffer, int offset, int len);
+
+	/**
+	 * Discards all bytes that are stored by this buffer.
+	 */
+	abstract void reset();
+
+	/**
+	 * Returns the position of the first byte that is stored by this buffer.
+	 *
+	 * @return the position of the first byte that is stored by this buffer.
+	 */
+	abstract long getStartPosition();
+
+	/**
+	 * Returns the position of the next byte that is written to this buffer.
+	 *
+	 * @return the number of bytes that have been written to this buffer.
+	 */
+	abstract long getEndPosition();
+
+	/**
+	 * Reads up to {@code len} stored bytes starting at the specified
+	 * position.
+	 *
+	 * @param position the position of the first byte that is read.
+	 * @param buffer the buffer into which the bytes are read.
+	 * @param offset the start offset in the buffer.
+	 * @param len the maximum number of bytes that are read.
+	 * @return the number of bytes that have been read or {@code -1} if
+	 * {@code position} is not lower than {@link #getEndPosition()}.
+	 * @throws IllegalArgumentException if the byte at {@code position} is no
+	 * longer stored.
+	 */
+	abstract int read(long position, byte[] buffer, int offset, int len);
+
+	/**
+	 * Returns the number of bytes that have been written to this buffer
+	 * since it has been created respectively {@link #reset()} has been
+	 * called but are no longer stored by it.
+	 *
+	 * @return the number of dropped bytes.
+	 */
+	abstract long getNumberOfDroppedBytes();
+
+	/**
+	 * Releases resources like files that are held by this buffer. Bytes
+	 * that are stored in such resources are discarded. The buffer can still
+	 * be used afterwards.
+	 */
+	@Override
+	public void close() {
+	}
+
+	/**
+	 * Returns a copy of the bytes that are stored by this buffer.
+	 *
+	 * @return the bytes that are stored by this buffer.
+	 */
+	synchronized byte[] toByteArray() {
+		long size = getEndPosition() - getStartPosition();
+		if (size > Integer.MAX_VALUE)
+			throw new IllegalStateException("The log has " + size
+				+ " bytes and is too large for an array.");
+		byte[] bytes = new byte[(int) size];
+		int numberOfCopiedBytes = 0;
+		while (numberOfCopiedBytes < bytes.length)
+			numberOfCopiedBytes += read(
+				getStartPosition() + numberOfCopiedBytes, bytes,
+				numberOfCopiedBytes, bytes.length - numberOfCopiedBytes);
+		return bytes;
+	}
+
+	void writeTo(OutputStream outputStream) throws IOException {
+		InputStream is = newInputStream();
+		byte[] buffer = new byte[COPY_BUFFER_SIZE];
+		int len;
+		while ((len = is.read(buffer)) != -1)
+			outputStream.write(buffer, 0, len);
+	}
+
+	/**
+	 * Creates an {@code InputStream} that provides the bytes that are
+	 * currently stored by this buffer. Bytes that are written to the buffer
+	 * afterwards are not provided by the stream. Bytes that are dropped while
+	 * the stream is read are skipped.
+	 *
+	 * @return an {@code InputStream} with the bytes of this buffer.
+	 */
+	synchronized InputStream newInputStream() {
+		return new LogInputStream(getStartPosition(), getEndPosition());
+	}
+
+	static void checkBounds(byte[] buffer, int offset, int len) {
+		if (buffer == null)
+			throw new NullPointerException();
+		else if (offset < 0 || len < 0 || len > buffer.length - offset)
+			throw new IndexOutOfBoundsException();
+	}
+
+	private class LogInputStream extends InputStream {
+		private final long endPosition;
+		private long position;
+
+		LogInputStream(long startPosition, long endPosition) {
+			this.position = startPosition;
+			this.endPosition = endPosition;
+		}
+
+		@Override
+		public int read() {
+			byte[] singleByte = new byte[1];
+			return read(singleByte, 0, 1) == -1 ? -1 : singleByte[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int len) {
+			checkBounds(buffer, offset, len);
+			synchronized (LogBuffer.this) {
+				position = Math.max(position, getStartPosition());
+				if (position >= endPosition)
+					return -1;
+				else if (len == 0)
+					return 0;
+				int numberOfReadBytes = LogBuffer.this.read(position, buffer,
+					offset, (int) Math.min(len, endPosition - position));
+				position += numberOfReadBytes;
+				return numberOfReadBytes;
+			}
+		}
+
+		@Override
+		public int available() {
+			synchronized (LogBuffer.this) {
+				long availableBytes = endPosition
+					- Math.max(position, getStartPosition());
+				return (int) Math.max(0,
+					Math.min(availableBytes, Integer.MAX_VALUE));
+			}
+		}
+	}
+}
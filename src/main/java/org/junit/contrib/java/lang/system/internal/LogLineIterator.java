@@ -0,0 +1,149 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static java.lang.Math.max;
+import static java.lang.System.arraycopy;
+import static java.lang.System.getProperty;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An {@code Iterator} over the complete lines of a log. It is a cursor that
+ * remembers how far the log has been read. Therefore every byte of the log
+ * is scanned only once. {@link #hasNext()} returns {@code false} if there is
+ * no further complete line, but it may return {@code true} later when more
+ * text has been logged.
+ */
+class LogLineIterator implements Iterator<String> {
+	private static final int CHUNK_SIZE = 8192;
+
+	private final LogPrintStream logPrintStream;
+	private final String encoding = Charset.defaultCharset().name();
+	private final byte[] lineSeparator = encode(getProperty("line.separator"));
+	private final byte[] chunk = new byte[CHUNK_SIZE];
+	private LogBuffer currentLog;
+	private long position;
+	private byte[] currentLine = new byte[CHUNK_SIZE];
+	private int currentLineLength = 0;
+	private String nextLine = null;
+
+	LogLineIterator(LogPrintStream logPrintStream) {
+		this.logPrintStream = logPrintStream;
+		this.currentLog = logPrintStream.getLogBuffer();
+		this.position = currentLog.getStartPosition();
+	}
+
+	public boolean hasNext() {
+		if (nextLine == null)
+			nextLine = readNextCompleteLine();
+		return nextLine != null;
+	}
+
+	public String next() {
+		if (!hasNext())
+			throw new NoSuchElementException(
+				"The log has no further complete line.");
+		String line = nextLine;
+		nextLine = null;
+		return line;
+	}
+
+	public void remove() {
+		throw new UnsupportedOperationException(
+			"Lines cannot be removed from the log.");
+	}
+
+	/**
+	 * Returns the text after the last complete line. It is not consumed by
+	 * this method.
+	 *
+	 * @return the text after the last complete line. It is empty if the log
+	 * ends with a line separator.
+	 */
+	String getIncompleteLine() {
+		if (hasNext())
+			throw new IllegalStateException(
+				"There are complete lines that have not been read.");
+		return decode(currentLine, currentLineLength);
+	}
+
+	private String readNextCompleteLine() {
+		LogBuffer log = logPrintStream.getLogBuffer();
+		synchronized (log) {
+			skipDroppedBytes(log);
+			int len;
+			while ((len = log.read(position, chunk, 0, chunk.length)) != -1) {
+				for (int i = 0; i < len; ++i) {
+					appendToCurrentLine(chunk[i]);
+					if (isLineComplete()) {
+						position += i + 1;
+						return removeCurrentLine();
+					}
+				}
+				position += len;
+			}
+			return null;
+		}
+	}
+
+	private void skipDroppedBytes(LogBuffer log) {
+		if (log != currentLog) {
+			//the log has been replaced
+			currentLog = log;
+			position = log.getStartPosition();
+			currentLineLength = 0;
+		}
+		long startPosition = log.getStartPosition();
+		long startOfCurrentLine = position - currentLineLength;
+		if (startOfCurrentLine < startPosition) {
+			position = max(position, startPosition);
+			currentLineLength = 0;
+		}
+	}
+
+	private void appendToCurrentLine(byte b) {
+		if (currentLineLength == currentLine.length) {
+			byte[] newCurrentLine = new byte[2 * currentLine.length];
+			arraycopy(currentLine, 0, newCurrentLine, 0, currentLineLength);
+			currentLine = newCurrentLine;
+		}
+		currentLine[currentLineLength++] = b;
+	}
+
+	private boolean isLineComplete() {
+		int start = currentLineLength - lineSeparator.length;
+		if (start < 0)
+			return false;
+		for (int i = 0; i < lineSeparator.length; ++i)
+			if (currentLine[start + i] != lineSeparator[i])
+				return false;
+		return true;
+	}
+
+	private String removeCurrentLine() {
+		String line = decode(currentLine,
+			max(0, currentLineLength - lineSeparator.length));
+		currentLineLength = 0;
+		return line;
+	}
+
+	private String decode(byte[] bytes, int len) {
+		try {
+			return new String(bytes, 0, len, encoding);
+		} catch (UnsupportedEncodingException e) {
+			//cannot happen because the encoding is the default encoding
+			throw new RuntimeException(e);
+		}
+	}
+
+	private byte[] encode(String text) {
+		try {
+			return text.getBytes(encoding);
+		} catch (UnsupportedEncodingException e) {
+			//cannot happen because the encoding is the default encoding
+			throw new RuntimeException(e);
+		}
+	}
+}
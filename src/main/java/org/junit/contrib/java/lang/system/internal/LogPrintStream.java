@@ -2,20 +2,43 @@ package org.junit.contrib.java.lang.system.internal;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.UnsupportedEncodingException;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 
 import org.junit.runners.model.Statement;
 
+import static java.lang.Math.min;
 import static java.lang.System.getProperty;
+import static java.lang.System.nanoTime;
+import static java.nio.charset.Charset.defaultCharset;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 public class LogPrintStream {
+	private static final long MAX_WAIT_FOR_BUFFERED_WRITES
+		= MILLISECONDS.toNanos(10);
+
 	private final PrintStreamHandler printStreamHandler;
 	private final MuteableLogStream muteableLogStream;
+	private final IncrementalLogDecoder decoder
+		= new IncrementalLogDecoder(defaultCharset());
+	private final DeferredFlushStream deferredFlushStream;
+	private boolean scopedToTestThread = false;
+	private boolean buffered = false;
+	private long versionOfNormalizedLog = -1;
+	private String lineSeparatorOfNormalizedLog;
+	private String normalizedLog;
 
 	public LogPrintStream(PrintStreamHandler printStreamHandler) {
 		this.printStreamHandler = printStreamHandler;
 		this.muteableLogStream = new MuteableLogStream(printStreamHandler.getStream());
+		this.deferredFlushStream = new DeferredFlushStream(
+			new LogsOfMuteableLogStream());
 	}
 
 	public Statement createStatement(final Statement base) {
@@ -23,29 +46,87 @@ public class LogPrintStream {
 			@Override
 			public void evaluate() throws Throwable {
 				try {
-					printStreamHandler.createRestoreStatement(new Statement() {
-						@Override
-						public void evaluate() throws Throwable {
-							printStreamHandler.replaceCurrentStreamWithOutputStream(muteableLogStream);
-							base.evaluate();
-						}
-					}).evaluate();
+					createCaptureStatement(base).evaluate();
 				} catch (Throwable e) {
 					muteableLogStream.failureLog.writeTo(printStreamHandler.getStream());
 					throw e;
+				} finally {
+					muteableLogStream.log.close();
 				}
 			}
 		};
 	}
 
+	private Statement createCaptureStatement(Statement base) {
+		final Statement baseWithFlush = createWriteBufferStatement(base);
+		final OutputStream captureStream
+			= buffered ? new BufferedLogStream() : muteableLogStream;
+		if (scopedToTestThread)
+			return new Statement() {
+				@Override
+				public void evaluate() throws Throwable {
+					muteableLogStream.originalStream
+						= printStreamHandler.getStreamOfCurrentThread();
+					printStreamHandler.createThreadScopedStatement(
+						captureStream, baseWithFlush).evaluate();
+				}
+			};
+		else
+			return printStreamHandler.createRestoreStatement(new Statement() {
+				@Override
+				public void evaluate() throws Throwable {
+					printStreamHandler.replaceCurrentStreamWithOutputStream(captureStream);
+					baseWithFlush.evaluate();
+				}
+			});
+	}
+
+	private Statement createWriteBufferStatement(final Statement base) {
+		return new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				try {
+					base.evaluate();
+				} finally {
+					writeBufferedBytes();
+				}
+			}
+		};
+	}
+
+	public void enableBuffering() {
+		buffered = true;
+	}
+
+	public void scopeToTestThread() {
+		scopedToTestThread = true;
+	}
+
 	public void clearLog() {
-		muteableLogStream.log.reset();
+		getLogBuffer().reset();
 	}
 
 	public void enableLog() {
 		muteableLogStream.logMuted = false;
 	}
 
+	public void enableLog(int maxBytes) {
+		replaceLog(new CircularLogBuffer(maxBytes));
+	}
+
+	public void enableLogSpillingToDisk(int maxBytesInMemory) {
+		replaceLog(new SpillingLogBuffer(maxBytesInMemory));
+	}
+
+	private void replaceLog(LogBuffer newLog) {
+		LogBuffer currentLog = getLogBuffer();
+		byte[] currentBytes = currentLog.toByteArray();
+		newLog.write(currentBytes, 0, currentBytes.length);
+		currentLog.close();
+		muteableLogStream.log = newLog;
+		enableLog();
+	}
+
 	public String getLog() {
 		/* The MuteableLogStream is created with the default encoding
 		 * because it writes to System.out or System.err if not muted and
@@ -53,17 +134,96 @@ public class LogPrintStream {
 		 * other streams receive input that is encoded with the default
 		 * encoding.
 		 */
-		String encoding = getProperty("file.encoding");
+		return decoder.decode(getLogBuffer());
+	}
+
+	public Iterator<String> getLogLines() {
+		return new LogLineIterator(this);
+	}
+
+	public String awaitLog(Pattern pattern, long timeout, TimeUnit unit)
+			throws InterruptedException {
+		long deadline = nanoTime() + unit.toNanos(timeout);
+		LogLineIterator lines = new LogLineIterator(this);
+		muteableLogStream.numberOfAwaitingThreads.incrementAndGet();
+		try {
+			while (true) {
+				long numberOfWrites = muteableLogStream.numberOfWrites.get();
+				String line = findLine(lines, pattern);
+				if (line != null)
+					return line;
+				long remainingTime = deadline - nanoTime();
+				if (remainingTime <= 0)
+					throw new AssertionError("The log has no line that"
+						+ " matches the pattern \"" + pattern + "\" after "
+						+ timeout + " " + unit + ".");
+				waitForWrite(numberOfWrites, remainingTime);
+			}
+		} finally {
+			muteableLogStream.numberOfAwaitingThreads.decrementAndGet();
+		}
+	}
+
+	private void waitForWrite(long numberOfWritesBefore, long timeoutNanos)
+			throws InterruptedException {
+		if (buffered)
+			//writes are not visible until the buffer is written
+			timeoutNanos = min(timeoutNanos, MAX_WAIT_FOR_BUFFERED_WRITES);
+		synchronized (muteableLogStream.logWritten) {
+			if (muteableLogStream.numberOfWrites.get() == numberOfWritesBefore)
+				NANOSECONDS.timedWait(
+					muteableLogStream.logWritten, timeoutNanos);
+		}
+	}
+
+	private String findLine(LogLineIterator lines, Pattern pattern) {
+		while (lines.hasNext()) {
+			String line = lines.next();
+			if (pattern.matcher(line).find())
+				return line;
+		}
+		String incompleteLine = lines.getIncompleteLine();
+		if (pattern.matcher(incompleteLine).find())
+			return incompleteLine;
+		else
+			return null;
+	}
+
+	LogBuffer getLogBuffer() {
+		writeBufferedBytes();
+		return muteableLogStream.log;
+	}
+
+	private void writeBufferedBytes() {
 		try {
-			return muteableLogStream.log.toString(encoding);
-		} catch (UnsupportedEncodingException e) {
-			throw new RuntimeException(e);
+			deferredFlushStream.writeBuffer();
+		} catch (IOException e) {
+			throw new RuntimeException(
+				"System Rules cannot write the buffered bytes.", e);
 		}
 	}
 
+	public InputStream getLogAsInputStream() {
+		return getLogBuffer().newInputStream();
+	}
+
+	public long getNumberOfDroppedBytes() {
+		return getLogBuffer().getNumberOfDroppedBytes();
+	}
+
 	public String getLogWithNormalizedLineSeparator() {
 		String lineSeparator = getProperty("line.separator");
-		return getLog().replace(lineSeparator, "\n");
+		synchronized (decoder) {
+			String log = getLog();
+			long version = decoder.getVersion();
+			if (version != versionOfNormalizedLog
+					|| !lineSeparator.equals(lineSeparatorOfNormalizedLog)) {
+				normalizedLog = log.replace(lineSeparator, "\n");
+				versionOfNormalizedLog = version;
+				lineSeparatorOfNormalizedLog = lineSeparator;
+			}
+			return normalizedLog;
+		}
 	}
 
 	public void mute() {
@@ -76,12 +236,15 @@ public class LogPrintStream {
 	}
 
 	private static class MuteableLogStream extends OutputStream {
-		final OutputStream originalStream;
+		OutputStream originalStream;
 		final ByteArrayOutputStream failureLog = new ByteArrayOutputStream();
-		final ByteArrayOutputStream log = new ByteArrayOutputStream();
+		LogBuffer log = new UnboundedLogBuffer();
 		boolean originalStreamMuted = false;
 		boolean failureLogMuted = true;
 		boolean logMuted = true;
+		final Object logWritten = new Object();
+		final AtomicInteger numberOfAwaitingThreads = new AtomicInteger();
+		final AtomicLong numberOfWrites = new AtomicLong();
 
 		MuteableLogStream(OutputStream originalStream) {
 			this.originalStream = originalStream;
@@ -89,24 +252,107 @@ public class LogPrintStream {
 
 		@Override
 		public void write(int b) throws IOException {
+			writeToOriginalStream(b);
+			writeToLogs(b);
+		}
+
+		@Override
+		public void write(byte[] buffer, int offset, int len)
+				throws IOException {
+			writeToOriginalStream(buffer, offset, len);
+			writeToLogs(buffer, offset, len);
+		}
+
+		void writeToOriginalStream(int b) throws IOException {
 			if (!originalStreamMuted)
 				originalStream.write(b);
+		}
+
+		void writeToOriginalStream(byte[] buffer, int offset, int len)
+				throws IOException {
+			if (!originalStreamMuted)
+				originalStream.write(buffer, offset, len);
+		}
+
+		void writeToLogs(int b) {
 			if (!failureLogMuted)
 				failureLog.write(b);
-			if (!logMuted)
+			if (!logMuted) {
 				log.write(b);
+				signalLogWritten();
+			}
+		}
+
+		void writeToLogs(byte[] buffer, int offset, int len) {
+			if (!failureLogMuted)
+				failureLog.write(buffer, offset, len);
+			if (!logMuted) {
+				log.write(buffer, offset, len);
+				signalLogWritten();
+			}
+		}
+
+		private void signalLogWritten() {
+			numberOfWrites.incrementAndGet();
+			if (numberOfAwaitingThreads.get() > 0)
+				synchronized (logWritten) {
+					logWritten.notifyAll();
+				}
 		}
 
 		@Override
 		public void flush() throws IOException {
-			originalStream.flush();
-			//ByteArrayOutputStreams don't have to be closed
+			if (!originalStreamMuted)
+				originalStream.flush();
+			//ByteArrayOutputStreams and LogBuffers don't have to be closed
 		}
 
 		@Override
 		public void close() throws IOException {
 			originalStream.close();
-			//ByteArrayOutputStreams don't have to be closed
+			//ByteArrayOutputStreams and LogBuffers don't have to be closed
+		}
+	}
+
+	/**
+	 * Writes the text to the original stream immediately and defers only
+	 * writing it to the logs. Therefore text that is written right before
+	 * a test hangs or calls {@code System.exit} is not lost.
+	 */
+	private class BufferedLogStream extends OutputStream {
+		@Override
+		public void write(int b) throws IOException {
+			muteableLogStream.writeToOriginalStream(b);
+			deferredFlushStream.write(b);
+		}
+
+		@Override
+		public void write(byte[] buffer, int offset, int len)
+				throws IOException {
+			muteableLogStream.writeToOriginalStream(buffer, offset, len);
+			deferredFlushStream.write(buffer, offset, len);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			muteableLogStream.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			muteableLogStream.close();
+		}
+	}
+
+	private class LogsOfMuteableLogStream extends OutputStream {
+		@Override
+		public void write(int b) {
+			muteableLogStream.writeToLogs(b);
+		}
+
+		@Override
+		public void write(byte[] buffer, int offset, int len) {
+			muteableLogStream.writeToLogs(buffer, offset, len);
 		}
 	}
 }
@@ -39,6 +39,8 @@ public enum PrintStreamHandler {
 	private static final boolean AUTO_FLUSH = true;
 	private static final String DEFAULT_ENCODING = Charset.defaultCharset().name();
 
+	private final PrintStreamRouter router = new PrintStreamRouter(this);
+
 	Statement createRestoreStatement(final Statement base) {
 		return new Statement() {
 			@Override
@@ -53,11 +55,42 @@ public enum PrintStreamHandler {
 		};
 	}
 
-	void replaceCurrentStreamWithOutputStream(OutputStream outputStream)
-			throws UnsupportedEncodingException {
-		PrintStream printStream = new PrintStream(
-			outputStream, AUTO_FLUSH, DEFAULT_ENCODING);
-		replaceCurrentStreamWithPrintStream(printStream);
+	/**
+	 * Creates a statement that lets the current thread and the threads
+	 * created by it write to the specified stream while the base statement
+	 * is evaluated. Other threads are not affected.
+	 */
+	Statement createThreadScopedStatement(final OutputStream outputStream,
+			final Statement base) {
+		return new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				ThreadScope.Binding<OutputStream> binding
+					= router.bind(outputStream);
+				try {
+					base.evaluate();
+				} finally {
+					router.release(binding);
+				}
+			}
+		};
+	}
+
+	OutputStream getStreamOfCurrentThread() {
+		return router.getStreamOfCurrentThread();
+	}
+
+	void replaceCurrentStreamWithOutputStream(OutputStream outputStream) {
+		replaceCurrentStreamWithPrintStream(createPrintStream(outputStream));
+	}
+
+	PrintStream createPrintStream(OutputStream outputStream) {
+		try {
+			return new PrintStream(outputStream, AUTO_FLUSH, DEFAULT_ENCODING);
+		} catch (UnsupportedEncodingException e) {
+			//cannot happen because the encoding is the default encoding
+			throw new RuntimeException(e);
+		}
 	}
 
 	abstract PrintStream getStream();
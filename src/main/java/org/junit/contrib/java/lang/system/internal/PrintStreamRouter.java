@@ -0,0 +1,77 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Replaces {@code System.out} respectively {@code System.err} with a
+ * {@code PrintStream} that writes to the stream that is bound to the
+ * current thread. Threads without a bound stream write to the original
+ * stream. The {@code PrintStream} is only installed while at least one
+ * stream is bound.
+ */
+class PrintStreamRouter extends ThreadScope<OutputStream> {
+	private final PrintStreamHandler printStreamHandler;
+	private volatile PrintStream originalStream;
+	private PrintStream routingStream;
+
+	PrintStreamRouter(PrintStreamHandler printStreamHandler) {
+		this.printStreamHandler = printStreamHandler;
+	}
+
+	/**
+	 * Returns the stream that the current thread is writing to. This is
+	 * not the routing {@code PrintStream} but the stream that it writes to.
+	 *
+	 * @return the stream that the current thread is writing to.
+	 */
+	synchronized OutputStream getStreamOfCurrentThread() {
+		OutputStream stream = get();
+		if (stream != null)
+			return stream;
+		else if (routingStream != null)
+			return originalStream;
+		else
+			return printStreamHandler.getStream();
+	}
+
+	@Override
+	void install() {
+		originalStream = printStreamHandler.getStream();
+		routingStream = printStreamHandler.createPrintStream(
+			new RoutingStream());
+		printStreamHandler.replaceCurrentStreamWithPrintStream(routingStream);
+	}
+
+	@Override
+	void uninstall() {
+		if (printStreamHandler.getStream() == routingStream)
+			printStreamHandler.replaceCurrentStreamWithPrintStream(
+				originalStream);
+		routingStream = null;
+	}
+
+	private class RoutingStream extends OutputStream {
+		@Override
+		public void write(int b) throws IOException {
+			target().write(b);
+		}
+
+		@Override
+		public void write(byte[] buffer, int offset, int len)
+				throws IOException {
+			target().write(buffer, offset, len);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			target().flush();
+		}
+
+		private OutputStream target() {
+			OutputStream stream = get();
+			return stream == null ? originalStream : stream;
+		}
+	}
+}
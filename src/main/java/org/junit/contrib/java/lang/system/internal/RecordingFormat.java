@@ -0,0 +1,57 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * The binary format of recordings of {@code System.in}. A recording starts
+ * with the magic bytes {@code SRIN} and a version byte. It is followed by a
+ * record for each chunk of bytes that has been read. A record consists of
+ * <ol>
+ * <li>the delay since the previous chunk in microseconds (unsigned
+ * variable-length integer with 7 bits per byte, least significant group
+ * first),</li>
+ * <li>the number of bytes of the chunk (same encoding) and</li>
+ * <li>the bytes of the chunk.</li>
+ * </ol>
+ */
+public class RecordingFormat {
+	private static final byte[] MAGIC = { 'S', 'R', 'I', 'N' };
+	private static final byte VERSION = 1;
+	static final int HEADER_LENGTH = MAGIC.length + 1;
+
+	private RecordingFormat() {
+	}
+
+	public static void writeHeader(OutputStream out) throws IOException {
+		out.write(MAGIC);
+		out.write(VERSION);
+	}
+
+	static void checkHeader(byte[] header) throws IOException {
+		byte[] magic = new byte[MAGIC.length];
+		System.arraycopy(header, 0, magic, 0, MAGIC.length);
+		if (!Arrays.equals(magic, MAGIC))
+			throw new IOException("The file is not a recording of System.in.");
+		else if (header[MAGIC.length] != VERSION)
+			throw new IOException("The version " + header[MAGIC.length]
+				+ " of the recording is not supported.");
+	}
+
+	public static void writeChunk(OutputStream out, long delayMicros,
+			byte[] bytes, int offset, int len) throws IOException {
+		writeVarLong(out, delayMicros);
+		writeVarLong(out, len);
+		out.write(bytes, offset, len);
+	}
+
+	private static void writeVarLong(OutputStream out, long value)
+			throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+}
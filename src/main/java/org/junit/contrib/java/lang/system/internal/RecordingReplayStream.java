@@ -0,0 +1,139 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static java.lang.Math.min;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.locks.LockSupport.parkNanos;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Replays a recording of {@code System.in} (see {@link RecordingFormat}). The
+ * recording is streamed from a {@code FileChannel} and a read never returns
+ * bytes of more than one chunk. Therefore the code under test gets the
+ * bytes in the same chunks as the recorded program. Optionally the delays
+ * between the chunks are replayed, too.
+ */
+public class RecordingReplayStream extends InputStream {
+	private static final int BUFFER_SIZE = 65536;
+
+	private final FileChannel channel;
+	private final boolean replayDelays;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private long remainingBytesOfChunk = 0;
+	private long timeOfPreviousChunk = nanoTime();
+
+	public RecordingReplayStream(String name, boolean replayDelays)
+			throws IOException {
+		this.channel = new RandomAccessFile(name, "r").getChannel();
+		this.replayDelays = replayDelays;
+		buffer.flip();
+		try {
+			readHeader();
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	private void readHeader() throws IOException {
+		byte[] header = new byte[RecordingFormat.HEADER_LENGTH];
+		for (int i = 0; i < header.length; ++i)
+			header[i] = readByteOfRecord();
+		RecordingFormat.checkHeader(header);
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!nextChunkAvailable())
+			return -1;
+		--remainingBytesOfChunk;
+		return readByteOfRecord() & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] bytes, int offset, int len) throws IOException {
+		if (len == 0)
+			return 0;
+		else if (!nextChunkAvailable())
+			return -1;
+		int numberOfBytes = (int) min(len, remainingBytesOfChunk);
+		for (int copied = 0; copied < numberOfBytes;) {
+			fillBufferIfEmpty();
+			int lengthOfPart = min(numberOfBytes - copied, buffer.remaining());
+			buffer.get(bytes, offset + copied, lengthOfPart);
+			copied += lengthOfPart;
+		}
+		remainingBytesOfChunk -= numberOfBytes;
+		return numberOfBytes;
+	}
+
+	@Override
+	public int available() {
+		return (int) min(remainingBytesOfChunk, buffer.remaining());
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private boolean nextChunkAvailable() throws IOException {
+		while (remainingBytesOfChunk == 0) {
+			if (!buffer.hasRemaining() && fillBuffer() == -1)
+				return false;
+			long delayMicros = readVarLong();
+			remainingBytesOfChunk = readVarLong();
+			if (replayDelays)
+				waitForChunk(MICROSECONDS.toNanos(delayMicros));
+		}
+		return true;
+	}
+
+	private void waitForChunk(long delayNanos) throws InterruptedIOException {
+		long timeOfChunk = timeOfPreviousChunk + delayNanos;
+		long remainingDelay;
+		while ((remainingDelay = timeOfChunk - nanoTime()) > 0) {
+			parkNanos(remainingDelay);
+			if (Thread.interrupted())
+				throw new InterruptedIOException();
+		}
+		timeOfPreviousChunk = nanoTime();
+	}
+
+	private long readVarLong() throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = readByteOfRecord();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return value;
+		}
+		throw new IOException("The recording is corrupt.");
+	}
+
+	private byte readByteOfRecord() throws IOException {
+		fillBufferIfEmpty();
+		return buffer.get();
+	}
+
+	private void fillBufferIfEmpty() throws IOException {
+		if (!buffer.hasRemaining() && fillBuffer() == -1)
+			throw new IOException("The recording is truncated.");
+	}
+
+	private int fillBuffer() throws IOException {
+		buffer.clear();
+		int numberOfBytes;
+		do {
+			numberOfBytes = channel.read(buffer);
+		} while (numberOfBytes == 0);
+		buffer.flip();
+		return numberOfBytes;
+	}
+}
@@ -0,0 +1,174 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static java.lang.Math.min;
+import static java.lang.System.arraycopy;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+
+/**
+ * A {@link LogBuffer} that stores the first bytes in memory and writes all
+ * further bytes to a temporary file. The file is memory-mapped for reading
+ * the bytes. It is deleted by {@link #reset()} and {@link #close()}.
+ */
+class SpillingLogBuffer extends LogBuffer {
+	private static final int FILE_BUFFER_SIZE = 64 * 1024;
+	private static final int MAX_MAPPING_SIZE = 64 * 1024 * 1024;
+
+	private final byte[] bytesInMemory;
+	private int numberOfBytesInMemory = 0;
+	private long startPosition = 0;
+	private long numberOfBytesInFile = 0;
+	private File file;
+	private OutputStream fileOutputStream;
+	private RandomAccessFile fileForReading;
+	private MappedByteBuffer mapping;
+	private long mappingStart;
+
+	SpillingLogBuffer(int maxBytesInMemory) {
+		if (maxBytesInMemory < 0)
+			throw new IllegalArgumentException(
+				"The number of bytes in memory must not be negative but is "
+					+ maxBytesInMemory + ".");
+		bytesInMemory = new byte[maxBytesInMemory];
+	}
+
+	@Override
+	public synchronized void write(byte[] buffer, int offset, int len) {
+		checkBounds(buffer, offset, len);
+		int lenInMemory = min(len, bytesInMemory.length - numberOfBytesInMemory);
+		arraycopy(buffer, offset, bytesInMemory, numberOfBytesInMemory,
+			lenInMemory);
+		numberOfBytesInMemory += lenInMemory;
+		if (lenInMemory < len)
+			writeToFile(buffer, offset + lenInMemory, len - lenInMemory);
+	}
+
+	private void writeToFile(byte[] buffer, int offset, int len) {
+		try {
+			if (file == null)
+				createFile();
+			fileOutputStream.write(buffer, offset, len);
+			numberOfBytesInFile += len;
+		} catch (IOException e) {
+			throw new RuntimeException(
+				"System Rules cannot write the log to the file " + file + ".",
+				e);
+		}
+	}
+
+	private void createFile() throws IOException {
+		file = File.createTempFile("system-rules-log", ".tmp");
+		fileOutputStream = new BufferedOutputStream(
+			new FileOutputStream(file), FILE_BUFFER_SIZE);
+	}
+
+	@Override
+	synchronized void reset() {
+		startPosition = getEndPosition();
+		numberOfBytesInMemory = 0;
+		deleteFile();
+	}
+
+	@Override
+	public synchronized void close() {
+		reset();
+	}
+
+	private void deleteFile() {
+		if (file != null) {
+			closeQuietly(fileOutputStream);
+			closeQuietly(fileForReading);
+			mapping = null;
+			if (!file.delete())
+				//a memory-mapped file cannot be deleted on Windows
+				file.deleteOnExit();
+			file = null;
+			fileOutputStream = null;
+			fileForReading = null;
+			numberOfBytesInFile = 0;
+		}
+	}
+
+	private void closeQuietly(Closeable closeable) {
+		try {
+			if (closeable != null)
+				closeable.close();
+		} catch (IOException ignored) {
+			//we can only try to release the file
+		}
+	}
+
+	@Override
+	synchronized long getStartPosition() {
+		return startPosition;
+	}
+
+	@Override
+	synchronized long getEndPosition() {
+		return startPosition + numberOfBytesInMemory + numberOfBytesInFile;
+	}
+
+	@Override
+	synchronized int read(long position, byte[] buffer, int offset, int len) {
+		checkBounds(buffer, offset, len);
+		if (position < startPosition)
+			throw new IllegalArgumentException("The byte at position "
+				+ position + " is no longer stored.");
+		else if (position >= getEndPosition())
+			return -1;
+		long index = position - startPosition;
+		if (index < numberOfBytesInMemory) {
+			int numberOfReadBytes = min(len,
+				numberOfBytesInMemory - (int) index);
+			arraycopy(bytesInMemory, (int) index, buffer, offset,
+				numberOfReadBytes);
+			return numberOfReadBytes;
+		} else
+			return readFromFile(
+				index - numberOfBytesInMemory, buffer, offset, len);
+	}
+
+	private int readFromFile(long positionInFile, byte[] buffer, int offset,
+			int len) {
+		try {
+			MappedByteBuffer mapping = getMappingWith(positionInFile);
+			mapping.position((int) (positionInFile - mappingStart));
+			int numberOfReadBytes = min(len, mapping.remaining());
+			mapping.get(buffer, offset, numberOfReadBytes);
+			return numberOfReadBytes;
+		} catch (IOException e) {
+			throw new RuntimeException(
+				"System Rules cannot read the log from the file " + file + ".",
+				e);
+		}
+	}
+
+	private MappedByteBuffer getMappingWith(long positionInFile)
+			throws IOException {
+		if (mapping == null || positionInFile < mappingStart
+				|| positionInFile >= mappingStart + mapping.capacity()) {
+			fileOutputStream.flush();
+			if (fileForReading == null)
+				fileForReading = new RandomAccessFile(file, "r");
+			long size = min(numberOfBytesInFile - positionInFile,
+				MAX_MAPPING_SIZE);
+			mapping = fileForReading.getChannel().map(
+				READ_ONLY, positionInFile, size);
+			mappingStart = positionInFile;
+		}
+		return mapping;
+	}
+
+	@Override
+	long getNumberOfDroppedBytes() {
+		return 0;
+	}
+}
@@ -0,0 +1,95 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static java.lang.System.setIn;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.runners.model.Statement;
+
+/**
+ * Replaces {@code System.in} with an {@code InputStream} that reads from the
+ * stream that is bound to the current thread. Threads without a bound
+ * stream read from the original {@code System.in}. The routing stream is
+ * only installed while at least one stream is bound.
+ */
+public class SystemInRouter extends ThreadScope<InputStream> {
+	private static final SystemInRouter ROUTER = new SystemInRouter();
+
+	private volatile InputStream originalIn;
+	private InputStream routingStream;
+
+	private SystemInRouter() {
+	}
+
+	/**
+	 * Creates a statement that lets the current thread and the threads that
+	 * are created by it read from the specified stream while the base
+	 * statement is evaluated.
+	 *
+	 * @param in the stream that is read instead of {@code System.in}.
+	 * @param base the statement that is evaluated.
+	 * @return the new statement.
+	 */
+	public static Statement createThreadScopedStatement(final InputStream in,
+			final Statement base) {
+		return new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				Binding<InputStream> binding = ROUTER.bind(in);
+				try {
+					base.evaluate();
+				} finally {
+					ROUTER.release(binding);
+				}
+			}
+		};
+	}
+
+	@Override
+	void install() {
+		originalIn = System.in;
+		routingStream = new RoutingStream();
+		setIn(routingStream);
+	}
+
+	@Override
+	void uninstall() {
+		if (System.in == routingStream)
+			setIn(originalIn);
+		routingStream = null;
+	}
+
+	private class RoutingStream extends InputStream {
+		@Override
+		public int read() throws IOException {
+			return source().read();
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int len)
+				throws IOException {
+			return source().read(buffer, offset, len);
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			return source().skip(n);
+		}
+
+		@Override
+		public int available() throws IOException {
+			return source().available();
+		}
+
+		@Override
+		public void close() throws IOException {
+			source().close();
+		}
+
+		private InputStream source() {
+			InputStream in = get();
+			return in == null ? originalIn : in;
+		}
+	}
+}
@@ -0,0 +1,331 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static java.lang.System.getProperties;
+import static java.lang.System.setProperties;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.junit.runners.model.Statement;
+
+/**
+ * Replaces the system properties with {@code Properties} that route every
+ * access to the properties that are bound to the current thread. The
+ * routing properties are only installed while at least one binding
+ * exists. During this time the original system properties are not
+ * modified, because they are the base of the bound properties. Threads
+ * without bound properties share a copy-on-write overlay of the original
+ * properties. Its changes are written to the original properties when the
+ * routing properties are uninstalled.
+ */
+public class SystemPropertiesRouter extends ThreadScope<Properties> {
+	private static final SystemPropertiesRouter ROUTER
+		= new SystemPropertiesRouter();
+
+	private volatile Properties originalProperties;
+	private volatile CopyOnWriteProperties propertiesOfUnboundThreads;
+	private Properties routingProperties;
+
+	private SystemPropertiesRouter() {
+	}
+
+	/**
+	 * Creates a statement that lets the current thread and the threads that
+	 * are created by it use their own system properties while the base
+	 * statement is evaluated. The properties are initially the same as the
+	 * properties of the current thread. Changes are discarded after the base
+	 * statement has been evaluated.
+	 *
+	 * @param base the statement that is evaluated.
+	 * @return the new statement.
+	 */
+	public static Statement createThreadScopedStatement(final Statement base) {
+		return new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				Binding<Properties> binding = ROUTER.bindCopyOfProperties();
+				try {
+					base.evaluate();
+				} finally {
+					ROUTER.release(binding);
+				}
+			}
+		};
+	}
+
+	private synchronized Binding<Properties> bindCopyOfProperties() {
+		return bind(new CopyOnWriteProperties(baseOfNewBinding()));
+	}
+
+	private Properties baseOfNewBinding() {
+		Properties properties = get();
+		CopyOnWriteProperties sharedProperties = propertiesOfUnboundThreads;
+		if (properties != null)
+			return properties;
+		else if (routingProperties == null || sharedProperties == null)
+			return getProperties(); //becomes the original properties
+		else if (sharedProperties.hasChanges())
+			//the shared overlay may be modified while it is a base
+			return (Properties) sharedProperties.clone();
+		else
+			return originalProperties;
+	}
+
+	private Properties propertiesOfCurrentThread() {
+		Properties properties = get();
+		return properties == null ? propertiesOfUnboundThreads : properties;
+	}
+
+	@Override
+	void install() {
+		originalProperties = getProperties();
+		propertiesOfUnboundThreads
+			= new CopyOnWriteProperties(originalProperties);
+		routingProperties = new RoutingProperties();
+		setProperties(routingProperties);
+	}
+
+	@Override
+	void uninstall() {
+		CopyOnWriteProperties sharedProperties = propertiesOfUnboundThreads;
+		if (sharedProperties != null)
+			sharedProperties.applyChangesTo(originalProperties);
+		if (getProperties() == routingProperties)
+			setProperties(originalProperties);
+		routingProperties = null;
+	}
+
+	private static class RoutingProperties extends Properties {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Object get(Object key) {
+			return source().get(key);
+		}
+
+		@Override
+		public Object put(Object key, Object value) {
+			return source().put(key, value);
+		}
+
+		@Override
+		public Object remove(Object key) {
+			return source().remove(key);
+		}
+
+		@Override
+		public void putAll(Map<?, ?> map) {
+			source().putAll(map);
+		}
+
+		@Override
+		public void clear() {
+			source().clear();
+		}
+
+		@Override
+		public int size() {
+			return source().size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return source().isEmpty();
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return source().containsKey(key);
+		}
+
+		@Override
+		public boolean contains(Object value) {
+			return source().contains(value);
+		}
+
+		@Override
+		public boolean containsValue(Object value) {
+			return source().containsValue(value);
+		}
+
+		@Override
+		public Enumeration<Object> keys() {
+			return source().keys();
+		}
+
+		@Override
+		public Enumeration<Object> elements() {
+			return source().elements();
+		}
+
+		@Override
+		public Set<Object> keySet() {
+			return source().keySet();
+		}
+
+		@Override
+		public Collection<Object> values() {
+			return source().values();
+		}
+
+		@Override
+		public Set<Map.Entry<Object, Object>> entrySet() {
+			return source().entrySet();
+		}
+
+		@Override
+		public String getProperty(String key) {
+			return source().getProperty(key);
+		}
+
+		@Override
+		public Enumeration<?> propertyNames() {
+			return source().propertyNames();
+		}
+
+		@IgnoreJRERequirement
+		public Set<String> stringPropertyNames() {
+			return source().stringPropertyNames();
+		}
+
+		@Override
+		public void list(PrintStream out) {
+			source().list(out);
+		}
+
+		@Override
+		public void list(PrintWriter out) {
+			source().list(out);
+		}
+
+		@Override
+		@Deprecated
+		public void save(OutputStream out, String comments) {
+			source().save(out, comments);
+		}
+
+		@Override
+		public void store(OutputStream out, String comments)
+				throws IOException {
+			source().store(out, comments);
+		}
+
+		@IgnoreJRERequirement
+		public void store(Writer writer, String comments) throws IOException {
+			source().store(writer, comments);
+		}
+
+		@Override
+		public void storeToXML(OutputStream os, String comment)
+				throws IOException {
+			source().storeToXML(os, comment);
+		}
+
+		@Override
+		public void storeToXML(OutputStream os, String comment,
+				String encoding) throws IOException {
+			source().storeToXML(os, comment, encoding);
+		}
+
+		@Override
+		public Object clone() {
+			return source().clone();
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return source().equals(other);
+		}
+
+		@Override
+		public int hashCode() {
+			return source().hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return source().toString();
+		}
+
+		private Object writeReplace() {
+			return source();
+		}
+
+		//Methods of Java 8's Map interface that are overridden by Hashtable
+
+		@IgnoreJRERequirement
+		public Object getOrDefault(Object key, Object defaultValue) {
+			return source().getOrDefault(key, defaultValue);
+		}
+
+		@IgnoreJRERequirement
+		public Object putIfAbsent(Object key, Object value) {
+			return source().putIfAbsent(key, value);
+		}
+
+		@IgnoreJRERequirement
+		public boolean remove(Object key, Object value) {
+			return source().remove(key, value);
+		}
+
+		@IgnoreJRERequirement
+		public boolean replace(Object key, Object oldValue, Object newValue) {
+			return source().replace(key, oldValue, newValue);
+		}
+
+		@IgnoreJRERequirement
+		public Object replace(Object key, Object value) {
+			return source().replace(key, value);
+		}
+
+		@IgnoreJRERequirement
+		public void forEach(BiConsumer<? super Object, ? super Object> action) {
+			source().forEach(action);
+		}
+
+		@IgnoreJRERequirement
+		public void replaceAll(
+				BiFunction<? super Object, ? super Object, ?> function) {
+			source().replaceAll(function);
+		}
+
+		@IgnoreJRERequirement
+		public Object computeIfAbsent(Object key,
+				Function<? super Object, ?> mappingFunction) {
+			return source().computeIfAbsent(key, mappingFunction);
+		}
+
+		@IgnoreJRERequirement
+		public Object computeIfPresent(Object key,
+				BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+			return source().computeIfPresent(key, remappingFunction);
+		}
+
+		@IgnoreJRERequirement
+		public Object compute(Object key,
+				BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+			return source().compute(key, remappingFunction);
+		}
+
+		@IgnoreJRERequirement
+		public Object merge(Object key, Object value,
+				BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+			return source().merge(key, value, remappingFunction);
+		}
+
+		private Properties source() {
+			return ROUTER.propertiesOfCurrentThread();
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package org.junit.contrib.java.lang.system.internal;
+
+/**
+ * Binds values to the current thread and to the threads that are created by
+ * it while the value is bound. A value is bound until its {@link Binding}
+ * is released. Bindings can be nested. Releasing the inner binding makes
+ * the value of the outer binding visible again.
+ *
+ * <p>Subclasses are notified when the first value is bound and when the
+ * last value is released. This allows them to install an object that
+ * routes to the values of the bindings (e.g. a stream that writes to the
+ * stream that is bound to the current thread) only while it is needed.
+ *
+ * @param <T> the type of the values.
+ */
+abstract class ThreadScope<T> {
+	private final InheritableThreadLocal<Binding<T>> currentBinding
+		= new InheritableThreadLocal<Binding<T>>();
+	private int numberOfActiveBindings = 0;
+
+	/**
+	 * Returns the value that is bound to the current thread.
+	 *
+	 * @return the value that is bound to the current thread or {@code null}
+	 * if no value is bound to it.
+	 */
+	T get() {
+		Binding<T> binding = currentBinding.get();
+		while (binding != null && binding.released)
+			binding = binding.previous;
+		return binding == null ? null : binding.value;
+	}
+
+	/**
+	 * Binds the value to the current thread.
+	 *
+	 * @param value the value that is bound.
+	 * @return the binding that has to be released by the current thread.
+	 */
+	synchronized Binding<T> bind(T value) {
+		if (numberOfActiveBindings == 0)
+			install();
+		++numberOfActiveBindings;
+		Binding<T> binding = new Binding<T>(value, currentBinding.get());
+		currentBinding.set(binding);
+		return binding;
+	}
+
+	/**
+	 * Releases a binding that has been created by the current thread.
+	 *
+	 * @param binding the binding that is released.
+	 */
+	synchronized void release(Binding<T> binding) {
+		binding.released = true;
+		if (binding.previous == null)
+			currentBinding.remove();
+		else
+			currentBinding.set(binding.previous);
+		--numberOfActiveBindings;
+		if (numberOfActiveBindings == 0)
+			uninstall();
+	}
+
+	/**
+	 * Called before the first value is bound.
+	 */
+	abstract void install();
+
+	/**
+	 * Called after the last binding has been released.
+	 */
+	abstract void uninstall();
+
+	static class Binding<T> {
+		final T value;
+		final Binding<T> previous;
+		volatile boolean released = false;
+
+		Binding(T value, Binding<T> previous) {
+			this.value = value;
+			this.previous = previous;
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static java.lang.System.arraycopy;
+
+/**
+ * A {@link LogBuffer} that stores every byte that is written to it. It
+ * grows as needed.
+ */
+class UnboundedLogBuffer extends LogBuffer {
+	private static final int INITIAL_CAPACITY = 32;
+
+	private byte[] bytes = new byte[INITIAL_CAPACITY];
+	private int size = 0;
+	private long startPosition = 0;
+
+	@Override
+	public synchronized void write(byte[] buffer, int offset, int len) {
+		checkBounds(buffer, offset, len);
+		ensureCapacity(size + len);
+		arraycopy(buffer, offset, bytes, size, len);
+		size += len;
+	}
+
+	private void ensureCapacity(int minCapacity) {
+		if (minCapacity < 0) //overflow
+			throw new OutOfMemoryError("The log cannot store more than "
+				+ Integer.MAX_VALUE + " bytes.");
+		else if (minCapacity > bytes.length) {
+			int newCapacity = Math.max(2 * bytes.length, minCapacity);
+			if (newCapacity < 0) //overflow
+				newCapacity = Integer.MAX_VALUE;
+			byte[] newBytes = new byte[newCapacity];
+			arraycopy(bytes, 0, newBytes, 0, size);
+			bytes = newBytes;
+		}
+	}
+
+	@Override
+	synchronized void reset() {
+		startPosition += size;
+		size = 0;
+	}
+
+	@Override
+	synchronized long getStartPosition() {
+		return startPosition;
+	}
+
+	@Override
+	synchronized long getEndPosition() {
+		return startPosition + size;
+	}
+
+	@Override
+	synchronized int read(long position, byte[] buffer, int offset, int len) {
+		checkBounds(buffer, offset, len);
+		if (position < startPosition)
+			throw new IllegalArgumentException("The byte at position "
+				+ position + " is no longer stored.");
+		else if (position >= getEndPosition())
+			return -1;
+		int index = (int) (position - startPosition);
+		int numberOfReadBytes = Math.min(len, size - index);
+		arraycopy(bytes, index, buffer, offset, numberOfReadBytes);
+		return numberOfReadBytes;
+	}
+
+	@Override
+	long getNumberOfDroppedBytes() {
+		return 0;
+	}
+}
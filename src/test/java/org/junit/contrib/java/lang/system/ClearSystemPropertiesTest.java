@@ -9,6 +9,8 @@ import org.junit.runner.RunWith;
 import org.junit.runner.notification.Failure;
 
 import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 @RunWith(Enclosed.class)
 public class ClearSystemPropertiesTest {
@@ -125,4 +127,59 @@ public class ClearSystemPropertiesTest {
 			assertThat(failures).isEmpty();
 		}
 	}
+
+	public static class other_threads_see_property_if_rule_is_scoped_to_test_thread {
+		private static final BlockingQueue<String> VALUES_OF_OTHER_THREAD
+			= new LinkedBlockingQueue<String>();
+		private static final Thread OTHER_THREAD = new Thread() {
+			@Override
+			public void run() {
+				VALUES_OF_OTHER_THREAD.add(getProperty("arbitrary property"));
+			}
+		};
+
+		@ClassRule
+		public static final ProvideSystemProperty ORIGINAL_PROPERTY
+			= new ProvideSystemProperty("arbitrary property", "arbitrary value");
+
+		@Rule
+		public final ClearSystemProperties clearSystemProperties
+			= new ClearSystemProperties("arbitrary property")
+				.scopeToTestThread();
+
+		@Test
+		public void test() throws Exception {
+			OTHER_THREAD.start();
+			OTHER_THREAD.join();
+			assertThat(VALUES_OF_OTHER_THREAD.poll())
+				.isEqualTo("arbitrary value");
+			assertThat(getProperty("arbitrary property")).isNull();
+		}
+	}
+
+	@RunWith(AcceptanceTestRunner.class)
+	public static class after_test_properties_have_the_same_values_as_before_if_rule_is_scoped_to_test_thread {
+		@BeforeClass
+		public static void populateProperty() {
+			setProperty("arbitrary property", "arbitrary value");
+		}
+
+		public static class TestClass {
+			@Rule
+			public final ClearSystemProperties clearSystemProperties
+				= new ClearSystemProperties("arbitrary property")
+					.scopeToTestThread();
+
+			@Test
+			public void test() {
+				assertThat(getProperty("arbitrary property")).isNull();
+			}
+		}
+
+		public static void verifyResult(Collection<Failure> failures) {
+			assertThat(failures).isEmpty();
+			assertThat(getProperty("arbitrary property"))
+				.isEqualTo("arbitrary value");
+		}
+	}
 }
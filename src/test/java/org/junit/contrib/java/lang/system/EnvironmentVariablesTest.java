@@ -2,18 +2,39 @@ package org.junit.contrib.java.lang.system;
 
 
 import org.junit.BeforeClass;
+import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.experimental.ParallelComputer;
 import org.junit.experimental.runners.Enclosed;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.Description;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
 import org.junit.runner.RunWith;
 import org.junit.runner.notification.Failure;
-
+import org.junit.runners.model.Statement;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import static java.lang.System.getenv;
 import static java.util.UUID.randomUUID;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+import static org.junit.contrib.java.lang.system.EnvironmentVariables.fromFile;
+import static org.junit.contrib.java.lang.system.EnvironmentVariables.fromResource;
 
 @RunWith(Enclosed.class)
 public class EnvironmentVariablesTest {
@@ -378,7 +399,428 @@ public class EnvironmentVariablesTest {
 		}
 	}
 
+	@RunWith(AcceptanceTestRunner.class)
+	public static class after_a_test_variable_that_is_set_before_and_within_the_test_has_the_same_value_as_before {
+		private static String originalValue;
+
+		@BeforeClass
+		public static void captureValue() {
+			originalValue = getenv("dummy name");
+		}
+
+		public static class TestClass {
+			@Rule
+			public final EnvironmentVariables environmentVariables
+				= new EnvironmentVariables().set("dummy name", randomValue());
+
+			@Test
+			public void test() {
+				environmentVariables.set("dummy name", randomValue());
+				environmentVariables.clear("dummy name");
+			}
+		}
+
+		public static void verifyStateAfterTest() {
+			assertThat(getenv("dummy name")).isEqualTo(originalValue);
+		}
+	}
+
+	@RunWith(AcceptanceTestRunner.class)
+	public static class after_a_test_variables_that_are_modified_by_other_means_are_restored_if_all_variables_are_restored {
+		private static Map<String, String> originalEnvironmentVariables;
+
+		@BeforeClass
+		public static void captureEnviromentVariables() {
+			originalEnvironmentVariables = new HashMap<String, String>(getenv());
+		}
+
+		public static class TestClass {
+			@Rule
+			public final EnvironmentVariables environmentVariables
+				= new EnvironmentVariables().restoreAllVariables();
+
+			@Test
+			public void test() throws Exception {
+				environmentVariables.set("dummy name", randomValue());
+				editableMapOfVariables().put("another name", randomValue());
+			}
+		}
+
+		public static void verifyStateAfterTest() {
+			assertThat(getenv()).isEqualTo(originalEnvironmentVariables);
+		}
+	}
+
+	public static class variable_is_available_in_a_thread_that_is_created_by_the_test_if_rule_is_scoped_to_test_thread {
+		@Rule
+		public final EnvironmentVariables environmentVariables
+			= new EnvironmentVariables().scopeToTestThread();
+
+		@Test
+		public void test() throws Exception {
+			environmentVariables.set("dummy name", "dummy value");
+			final BlockingQueue<String> values
+				= new LinkedBlockingQueue<String>();
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					values.add(getenv("dummy name"));
+				}
+			};
+			thread.start();
+			thread.join();
+			assertThat(values.poll()).isEqualTo("dummy value");
+			assertThat(getenv()).containsEntry("dummy name", "dummy value");
+		}
+	}
+
+	public static class other_threads_see_original_variables_if_rule_is_scoped_to_test_thread {
+		private static final BlockingQueue<Map<String, String>> VARIABLES_OF_OTHER_THREAD
+			= new LinkedBlockingQueue<Map<String, String>>();
+		private static final Thread OTHER_THREAD = new Thread() {
+			@Override
+			public void run() {
+				VARIABLES_OF_OTHER_THREAD.add(
+					new HashMap<String, String>(getenv()));
+			}
+		};
+
+		@ClassRule
+		public static final EnvironmentVariables ORIGINAL_VARIABLES
+			= new EnvironmentVariables().set("dummy name", "original value");
+
+		@Rule
+		public final EnvironmentVariables environmentVariables
+			= new EnvironmentVariables().scopeToTestThread();
+
+		@Test
+		public void test() throws Exception {
+			environmentVariables
+				.set("dummy name", "dummy value")
+				.set("another name", "another value");
+			OTHER_THREAD.start();
+			OTHER_THREAD.join();
+			assertThat(VARIABLES_OF_OTHER_THREAD.poll())
+				.containsEntry("dummy name", "original value")
+				.doesNotContainKey("another name");
+			assertThat(getenv("dummy name")).isEqualTo("dummy value");
+		}
+	}
+
+	@RunWith(AcceptanceTestRunner.class)
+	public static class after_the_test_environment_variables_map_contains_same_values_as_before_if_rule_is_scoped_to_test_thread {
+		private static Map<String, String> originalEnvironmentVariables;
+
+		@BeforeClass
+		public static void captureEnviromentVariables() {
+			originalEnvironmentVariables = new HashMap<String, String>(getenv());
+		}
+
+		public static class TestClass {
+			@Rule
+			public final EnvironmentVariables environmentVariables
+				= new EnvironmentVariables()
+					.set("dummy name", randomValue())
+					.scopeToTestThread();
+
+			@Test
+			public void test() {
+				environmentVariables.set("another name", randomValue());
+			}
+		}
+
+		public static void verifyStateAfterTest() throws Exception {
+			assertThat(getenv()).isEqualTo(originalEnvironmentVariables);
+			assertThat(editableMapOfVariables().getClass().getName())
+				.isEqualTo("java.lang.ProcessEnvironment$StringEnvironment");
+		}
+	}
+
+	public static class tests_that_are_running_in_parallel_see_their_own_variables_if_rule_is_scoped_to_test_thread {
+		@Test
+		public void test() {
+			Result result = JUnitCore.runClasses(
+				ParallelComputer.methods(), TestClass.class);
+			assertThat(result.getFailures()).isEmpty();
+			assertThat(result.getRunCount()).isEqualTo(2);
+		}
+
+		public static class TestClass {
+			private static final CyclicBarrier BARRIER = new CyclicBarrier(2);
+
+			@Rule
+			public final EnvironmentVariables environmentVariables
+				= new EnvironmentVariables().scopeToTestThread();
+
+			@Test
+			public void first() throws Exception {
+				setVariableConcurrently("first");
+			}
+
+			@Test
+			public void second() throws Exception {
+				setVariableConcurrently("second");
+			}
+
+			private void setVariableConcurrently(String value)
+					throws Exception {
+				BARRIER.await(10, SECONDS);
+				for (int i = 0; i < 1000; ++i) {
+					environmentVariables.set("dummy name", value + " " + i);
+					assertThat(getenv("dummy name")).isEqualTo(value + " " + i);
+				}
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, String> editableMapOfVariables()
+			throws Exception {
+		Field field = getenv().getClass().getDeclaredField("m");
+		field.setAccessible(true);
+		return (Map<String, String>) field.get(getenv());
+	}
+
 	private static String randomValue() {
 		return randomUUID().toString();
 	}
+
+	public static class variables_from_resource_are_present_during_test {
+		@Rule
+		public final EnvironmentVariables environmentVariables
+			= fromResource("example.env");
+
+		@Test
+		public void test() {
+			assertThat(getenv("FIRST_VARIABLE")).isEqualTo("first value");
+			assertThat(getenv("SECOND_VARIABLE")).isEqualTo("second # value");
+			assertThat(getenv("THIRD_VARIABLE")).isEqualTo("third\tvalue");
+		}
+	}
+
+	public static class variables_from_file_are_present_during_test {
+		@ClassRule
+		public static final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+		private static File file;
+
+		@BeforeClass
+		public static void createFile() throws Exception {
+			file = temporaryFolder.newFile();
+			FileOutputStream fos = new FileOutputStream(file);
+			try {
+				fos.write(("# comment\n"
+					+ "\n"
+					+ "export FIRST_VARIABLE=first value # comment\n"
+					+ "SECOND_VARIABLE=\"second \\\"value\\\"\"\n")
+					.getBytes("UTF-8"));
+			} finally {
+				fos.close();
+			}
+		}
+
+		@Rule
+		public final EnvironmentVariables environmentVariables
+			= fromFile(file.getAbsolutePath());
+
+		@Test
+		public void test() {
+			assertThat(getenv("FIRST_VARIABLE")).isEqualTo("first value");
+			assertThat(getenv("SECOND_VARIABLE")).isEqualTo("second \"value\"");
+		}
+	}
+
+	public static class variables_from_file_are_not_present_after_test {
+		@Test
+		public void test() throws Throwable {
+			final EnvironmentVariables environmentVariables
+				= fromResource("example.env");
+			environmentVariables.apply(new Statement() {
+				@Override
+				public void evaluate() {
+				}
+			}, Description.EMPTY).evaluate();
+			assertThat(getenv("FIRST_VARIABLE")).isNull();
+			assertThat(getenv()).doesNotContainKey("THIRD_VARIABLE");
+		}
+	}
+
+	public static class rule_cannot_be_created_from_file_that_does_not_exist {
+		@Test
+		public void test() {
+			try {
+				fromFile("/file/that/does/not/exist.env");
+			} catch (IllegalArgumentException e) {
+				assertThat(e)
+					.hasMessage("Cannot create EnvironmentVariables rule because"
+						+ " file \"/file/that/does/not/exist.env\" cannot be read.")
+					.hasCauseInstanceOf(IOException.class);
+				return;
+			}
+			fail("IllegalArgumentException expected.");
+		}
+	}
+
+	public static class rule_cannot_be_created_from_resource_that_does_not_exist {
+		@Test
+		public void test() {
+			try {
+				fromResource("missing.env");
+			} catch (IllegalArgumentException e) {
+				assertThat(e).hasMessage("Cannot create EnvironmentVariables rule"
+					+ " because resource \"missing.env\" does not exist.");
+				return;
+			}
+			fail("IllegalArgumentException expected.");
+		}
+	}
+
+	public static class variable_that_is_set_by_the_rule_is_available_in_a_child_process {
+		@Rule
+		public final EnvironmentVariables environmentVariables
+			= new EnvironmentVariables();
+
+		@Test
+		public void test() throws Exception {
+			environmentVariables.set("dummy name", "dummy value");
+			ProcessBuilder processBuilder = new ProcessBuilder(ENV);
+			processBuilder.environment();
+			assertThat(variablesOfChildProcess(processBuilder))
+				.containsEntry("dummy name", "dummy value");
+		}
+	}
+
+	public static class variable_that_is_cleared_by_the_rule_is_not_available_in_a_child_process {
+		@Rule
+		public final EnvironmentVariables environmentVariables
+			= new EnvironmentVariables();
+
+		@Test
+		public void test() throws Exception {
+			assumeTrue(getenv("PATH") != null);
+			environmentVariables.clear("PATH");
+			ProcessBuilder processBuilder = new ProcessBuilder(ENV);
+			processBuilder.environment();
+			assertThat(variablesOfChildProcess(processBuilder))
+				.doesNotContainKey("PATH");
+		}
+	}
+
+	public static class variable_that_is_set_after_the_environment_of_a_process_builder_has_been_created_is_applied_to_the_process_builder {
+		@Rule
+		public final EnvironmentVariables environmentVariables
+			= new EnvironmentVariables();
+
+		@Test
+		public void test() throws Exception {
+			ProcessBuilder processBuilder = new ProcessBuilder(ENV);
+			processBuilder.environment();
+			environmentVariables.set("dummy name", "dummy value");
+			environmentVariables.applyTo(processBuilder);
+			assertThat(variablesOfChildProcess(processBuilder))
+				.containsEntry("dummy name", "dummy value");
+		}
+	}
+
+	public static class variables_of_a_rule_that_is_scoped_to_test_thread_are_applied_to_a_process_builder {
+		@Rule
+		public final EnvironmentVariables environmentVariables
+			= new EnvironmentVariables()
+				.set("first name", "first value")
+				.scopeToTestThread();
+
+		@Test
+		public void test() throws Exception {
+			assumeTrue(getenv("PATH") != null);
+			environmentVariables.set("second name", "second value");
+			environmentVariables.clear("PATH");
+			ProcessBuilder processBuilder = environmentVariables.applyTo(
+				new ProcessBuilder(ENV));
+			assertThat(variablesOfChildProcess(processBuilder))
+				.containsEntry("first name", "first value")
+				.containsEntry("second name", "second value")
+				.doesNotContainKey("PATH");
+		}
+	}
+
+	private static final String ENV = "/usr/bin/env";
+
+	private static Map<String, String> variablesOfChildProcess(
+			ProcessBuilder processBuilder) throws Exception {
+		assumeTrue(new File(ENV).exists());
+		Process process = processBuilder.start();
+		Map<String, String> variables = new HashMap<String, String>();
+		BufferedReader reader = new BufferedReader(
+			new InputStreamReader(process.getInputStream(), "UTF-8"));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				int indexOfEqualsSign = line.indexOf('=');
+				if (indexOfEqualsSign > 0)
+					variables.put(line.substring(0, indexOfEqualsSign),
+						line.substring(indexOfEqualsSign + 1));
+			}
+		} finally {
+			reader.close();
+		}
+		assertThat(process.waitFor()).isEqualTo(0);
+		return variables;
+	}
+
+	public static class changes_of_threads_without_scoped_rule_do_not_affect_a_rule_that_is_scoped_to_test_thread {
+		private static final BlockingQueue<String> COMMANDS
+			= new LinkedBlockingQueue<String>();
+		private static final BlockingQueue<String> ACKNOWLEDGEMENTS
+			= new LinkedBlockingQueue<String>();
+
+		@BeforeClass
+		public static void startOtherThread() {
+			//created before the test, therefore it is not bound to the rule
+			Thread otherThread = new Thread() {
+				@Override
+				public void run() {
+					try {
+						COMMANDS.take();
+						new EnvironmentVariables()
+							.set("variable of other thread", "dummy value")
+							.apply(new Statement() {
+								@Override
+								public void evaluate() throws Exception {
+									ACKNOWLEDGEMENTS.add("variable set");
+									COMMANDS.take();
+								}
+							}, Description.EMPTY)
+							.evaluate();
+						ACKNOWLEDGEMENTS.add("variable restored");
+					} catch (Throwable e) {
+						ACKNOWLEDGEMENTS.add(e.toString());
+					}
+				}
+			};
+			otherThread.setDaemon(true);
+			otherThread.start();
+		}
+
+		@Rule
+		public final EnvironmentVariables environmentVariables
+			= new EnvironmentVariables().scopeToTestThread();
+
+		@Test
+		public void test() throws Exception {
+			environmentVariables.set("variable of test thread", "dummy value");
+			int size = getenv().size();
+			COMMANDS.add("set variable");
+			assertThat(ACKNOWLEDGEMENTS.poll(10, SECONDS))
+				.isEqualTo("variable set");
+			try {
+				assertThat(getenv("variable of other thread")).isNull();
+				assertThat(getenv().size()).isEqualTo(size);
+				assertThat(new HashMap<String, String>(getenv())).hasSize(size);
+			} finally {
+				COMMANDS.add("restore variable");
+				assertThat(ACKNOWLEDGEMENTS.poll(10, SECONDS))
+					.isEqualTo("variable restored");
+			}
+		}
+	}
 }
@@ -1,6 +1,7 @@
 package org.junit.contrib.java.lang.system;
 
 import static java.lang.System.*;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.apache.commons.io.IOUtils.copy;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.contrib.java.lang.system.ProvideSystemProperty.fromFile;
@@ -10,13 +11,20 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.util.Collection;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.experimental.ParallelComputer;
 import org.junit.experimental.runners.Enclosed;
 import org.junit.rules.TemporaryFolder;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
 import org.junit.runner.RunWith;
 import org.junit.runner.notification.Failure;
 
@@ -248,4 +256,123 @@ public class ProvideSystemPropertyTest {
 				.isEqualTo("value before executing the rule");
 		}
 	}
+
+	public static class provided_property_is_available_in_a_thread_that_is_created_by_the_test_if_rule_is_scoped_to_test_thread {
+		@Rule
+		public final ProvideSystemProperty provideSystemProperty
+			= new ProvideSystemProperty(ARBITRARY_KEY, ARBITRARY_VALUE)
+				.scopeToTestThread();
+
+		@Test
+		public void test() throws Exception {
+			final BlockingQueue<String> values
+				= new LinkedBlockingQueue<String>();
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					values.add(getProperty(ARBITRARY_KEY));
+				}
+			};
+			thread.start();
+			thread.join();
+			assertThat(values.poll()).isEqualTo(ARBITRARY_VALUE);
+		}
+	}
+
+	public static class other_threads_see_original_property_if_rule_is_scoped_to_test_thread {
+		private static final BlockingQueue<String> VALUES_OF_OTHER_THREAD
+			= new LinkedBlockingQueue<String>();
+		private static final Thread OTHER_THREAD = new Thread() {
+			@Override
+			public void run() {
+				VALUES_OF_OTHER_THREAD.add(getProperty(ARBITRARY_KEY));
+			}
+		};
+
+		@ClassRule
+		public static final ProvideSystemProperty ORIGINAL_PROPERTY
+			= new ProvideSystemProperty(ARBITRARY_KEY, A_DIFFERENT_VALUE);
+
+		@Rule
+		public final ProvideSystemProperty provideSystemProperty
+			= new ProvideSystemProperty(ARBITRARY_KEY, ARBITRARY_VALUE)
+				.scopeToTestThread();
+
+		@Test
+		public void test() throws Exception {
+			OTHER_THREAD.start();
+			OTHER_THREAD.join();
+			assertThat(VALUES_OF_OTHER_THREAD.poll())
+				.isEqualTo(A_DIFFERENT_VALUE);
+			assertThat(getProperty(ARBITRARY_KEY)).isEqualTo(ARBITRARY_VALUE);
+		}
+	}
+
+	@RunWith(AcceptanceTestRunner.class)
+	public static class after_the_test_system_properties_are_same_as_before_if_rule_is_scoped_to_test_thread {
+		private static Properties originalProperties;
+
+		@BeforeClass
+		public static void captureProperties() {
+			clearProperty(ARBITRARY_KEY);
+			originalProperties = getProperties();
+		}
+
+		public static class TestClass {
+			@Rule
+			public final ProvideSystemProperty provideSystemProperty
+				= new ProvideSystemProperty(ARBITRARY_KEY, ARBITRARY_VALUE)
+					.scopeToTestThread();
+
+			@Test
+			public void test() {
+			}
+		}
+
+		public static void verifyStateAfterTest() {
+			assertThat(getProperties()).isSameAs(originalProperties);
+			assertThat(getProperty(ARBITRARY_KEY)).isNull();
+		}
+	}
+
+	public static class tests_that_are_running_in_parallel_see_their_own_properties_if_rule_is_scoped_to_test_thread {
+		@Test
+		public void test() {
+			Result result = JUnitCore.runClasses(
+				ParallelComputer.methods(), TestClass.class);
+			assertThat(result.getFailures()).isEmpty();
+			assertThat(result.getRunCount()).isEqualTo(2);
+		}
+
+		public static class TestClass {
+			private static final CyclicBarrier BARRIER = new CyclicBarrier(2);
+
+			@Rule
+			public final ProvideSystemProperty provideSystemProperty
+				= new ProvideSystemProperty(ARBITRARY_KEY, ARBITRARY_VALUE)
+					.scopeToTestThread();
+
+			@Test
+			public void first() throws Exception {
+				setPropertyConcurrently("first");
+			}
+
+			@Test
+			public void second() throws Exception {
+				setPropertyConcurrently("second");
+			}
+
+			private void setPropertyConcurrently(String value)
+					throws Exception {
+				BARRIER.await(10, SECONDS);
+				assertThat(getProperty(ARBITRARY_KEY))
+					.isEqualTo(ARBITRARY_VALUE);
+				for (int i = 0; i < 1000; ++i) {
+					setProperty(ANOTHER_KEY, value + " " + i);
+					assertThat(getProperty(ANOTHER_KEY))
+						.isEqualTo(value + " " + i);
+				}
+			}
+		}
+	}
 }
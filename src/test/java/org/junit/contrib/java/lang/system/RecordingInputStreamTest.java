@@ -0,0 +1,72 @@
+package org.junit.contrib.java.lang.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+@RunWith(Enclosed.class)
+public class RecordingInputStreamTest {
+	public static class input_is_passed_through_unchanged {
+		@Test
+		public void test() throws Exception {
+			InputStream stream = new RecordingInputStream(
+				new ByteArrayInputStream("arbitrary text".getBytes()),
+				new ByteArrayOutputStream());
+			assertThat(IOUtils.toString(stream)).isEqualTo("arbitrary text");
+		}
+	}
+
+	public static class recording_starts_with_magic_bytes_and_version {
+		@Test
+		public void test() throws Exception {
+			ByteArrayOutputStream recording = new ByteArrayOutputStream();
+			new RecordingInputStream(
+				new ByteArrayInputStream(new byte[0]), recording).close();
+			assertThat(recording.toByteArray())
+				.containsExactly(new byte[] { 'S', 'R', 'I', 'N', 1 });
+		}
+	}
+
+	public static class skipped_bytes_are_part_of_the_recording {
+		@Rule
+		public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= TextFromStandardInputStream.emptyStandardInputStream();
+
+		@Test
+		public void test() throws Exception {
+			File file = temporaryFolder.newFile();
+			InputStream stream = new RecordingInputStream(
+				new ByteArrayInputStream("skipped text".getBytes()),
+				file.getAbsolutePath());
+			stream.skip(8);
+			IOUtils.toString(stream);
+			stream.close();
+			systemInMock.provideRecording(file.getAbsolutePath());
+			assertThat(IOUtils.toString(System.in)).isEqualTo("skipped text");
+		}
+	}
+
+	public static class mark_is_not_supported {
+		@Test
+		public void test() throws IOException {
+			InputStream stream = new RecordingInputStream(
+				new ByteArrayInputStream(new byte[0]),
+				new ByteArrayOutputStream());
+			assertThat(stream.markSupported()).isFalse();
+		}
+	}
+}
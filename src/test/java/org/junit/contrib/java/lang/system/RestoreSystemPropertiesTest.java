@@ -9,7 +9,10 @@ import org.junit.runner.RunWith;
 import org.junit.runner.notification.Failure;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 @RunWith(Enclosed.class)
 public class RestoreSystemPropertiesTest {
@@ -88,4 +91,201 @@ public class RestoreSystemPropertiesTest {
 			assertThat(failures).isEmpty();
 		}
 	}
+
+	@RunWith(AcceptanceTestRunner.class)
+	public static class property_that_is_cleared_during_the_test_exists_after_the_test {
+		@BeforeClass
+		public static void setProperty() {
+			System.setProperty(PROPERTY_KEY, "dummy value");
+		}
+
+		public static class TestClass {
+			@Rule
+			public final TestRule restoreSystemProperties = new RestoreSystemProperties();
+
+			@Test
+			public void test() {
+				System.clearProperty(PROPERTY_KEY);
+			}
+		}
+
+		public static void verifyStateAfterTest() {
+			assertThat(System.getProperty(PROPERTY_KEY))
+				.isEqualTo("dummy value");
+		}
+	}
+
+	@RunWith(AcceptanceTestRunner.class)
+	public static class original_properties_are_not_modified_during_the_test {
+		private static Properties originalProperties;
+
+		@BeforeClass
+		public static void captureOriginalProperties() {
+			System.setProperty(PROPERTY_KEY, "dummy value");
+			originalProperties = System.getProperties();
+		}
+
+		public static class TestClass {
+			@Rule
+			public final TestRule restoreSystemProperties = new RestoreSystemProperties();
+
+			@Test
+			public void test() {
+				System.setProperty(PROPERTY_KEY, "another value");
+				System.setProperty("another property", "dummy value");
+				assertThat(originalProperties)
+					.containsEntry(PROPERTY_KEY, "dummy value")
+					.doesNotContainKey("another property");
+			}
+		}
+
+		public static void verifyResult(Collection<Failure> failures) {
+			assertThat(failures).isEmpty();
+		}
+	}
+
+	@RunWith(AcceptanceTestRunner.class)
+	public static class changes_of_the_test_are_visible_when_properties_are_iterated {
+		@BeforeClass
+		public static void setProperty() {
+			System.setProperty(PROPERTY_KEY, "dummy value");
+		}
+
+		public static class TestClass {
+			@Rule
+			public final TestRule restoreSystemProperties = new RestoreSystemProperties();
+
+			@Test
+			public void test() {
+				System.setProperty(PROPERTY_KEY, "another value");
+				System.setProperty("another property", "dummy value");
+				Properties copy = new Properties();
+				for (Map.Entry<Object, Object> entry : System.getProperties().entrySet())
+					copy.put(entry.getKey(), entry.getValue());
+				assertThat(copy)
+					.containsEntry(PROPERTY_KEY, "another value")
+					.containsEntry("another property", "dummy value")
+					.hasSameSizeAs(System.getProperties());
+			}
+		}
+
+		public static void verifyResult(Collection<Failure> failures) {
+			assertThat(failures).isEmpty();
+		}
+	}
+
+	public static class changes_are_not_visible_to_other_threads_if_rule_is_scoped_to_test_thread {
+		private static final BlockingQueue<String> VALUES_OF_OTHER_THREAD
+			= new LinkedBlockingQueue<String>();
+		private static final Thread OTHER_THREAD = new Thread() {
+			@Override
+			public void run() {
+				VALUES_OF_OTHER_THREAD.add(System.getProperty(PROPERTY_KEY));
+			}
+		};
+
+		@ClassRule
+		public static final ProvideSystemProperty ORIGINAL_PROPERTY
+			= new ProvideSystemProperty(PROPERTY_KEY, "dummy value");
+
+		@Rule
+		public final RestoreSystemProperties restoreSystemProperties
+			= new RestoreSystemProperties().scopeToTestThread();
+
+		@Test
+		public void test() throws Exception {
+			System.setProperty(PROPERTY_KEY, "another value");
+			OTHER_THREAD.start();
+			OTHER_THREAD.join();
+			assertThat(VALUES_OF_OTHER_THREAD.poll()).isEqualTo("dummy value");
+		}
+	}
+
+	@RunWith(AcceptanceTestRunner.class)
+	public static class after_test_properties_have_the_same_values_as_before_if_rule_is_scoped_to_test_thread {
+		private static Properties originalProperties;
+
+		@BeforeClass
+		public static void setProperty() {
+			System.setProperty(PROPERTY_KEY, "dummy value");
+			originalProperties = System.getProperties();
+		}
+
+		public static class TestClass {
+			@Rule
+			public final RestoreSystemProperties restoreSystemProperties
+				= new RestoreSystemProperties().scopeToTestThread();
+
+			@Test
+			public void test() {
+				System.setProperty(PROPERTY_KEY, "another value");
+				System.setProperty("another property", "dummy value");
+			}
+		}
+
+		public static void verifyStateAfterTest() {
+			assertThat(System.getProperties()).isSameAs(originalProperties);
+			assertThat(System.getProperty(PROPERTY_KEY))
+				.isEqualTo("dummy value");
+			assertThat(System.getProperty("another property")).isNull();
+		}
+	}
+
+	@RunWith(AcceptanceTestRunner.class)
+	public static class changes_of_threads_without_scoped_rule_do_not_affect_a_rule_that_is_scoped_to_test_thread {
+		private static final String KEY_OF_OTHER_THREAD = "property of other thread";
+		private static final BlockingQueue<String> COMMANDS
+			= new LinkedBlockingQueue<String>();
+		private static final BlockingQueue<String> ACKNOWLEDGEMENTS
+			= new LinkedBlockingQueue<String>();
+
+		@BeforeClass
+		public static void startOtherThread() {
+			System.setProperty(PROPERTY_KEY, "dummy value");
+			//created before the test, therefore it is not bound to the rule
+			Thread otherThread = new Thread() {
+				@Override
+				public void run() {
+					try {
+						COMMANDS.take();
+						System.setProperty(KEY_OF_OTHER_THREAD, "dummy value");
+						System.clearProperty(PROPERTY_KEY);
+						ACKNOWLEDGEMENTS.add("done");
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			};
+			otherThread.setDaemon(true);
+			otherThread.start();
+		}
+
+		public static class TestClass {
+			@Rule
+			public final RestoreSystemProperties restoreSystemProperties
+				= new RestoreSystemProperties().scopeToTestThread();
+
+			@Test
+			public void test() throws Exception {
+				System.setProperty("property of test thread", "dummy value");
+				int size = System.getProperties().size();
+				COMMANDS.add("change properties");
+				ACKNOWLEDGEMENTS.take();
+				Properties properties = System.getProperties();
+				assertThat(properties.getProperty(KEY_OF_OTHER_THREAD)).isNull();
+				assertThat(properties.getProperty(PROPERTY_KEY))
+					.isEqualTo("dummy value");
+				assertThat(properties.size()).isEqualTo(size);
+				assertThat(properties.entrySet()).hasSize(size);
+			}
+		}
+
+		public static void verifyStateAfterTest() {
+			assertThat(System.getProperty(KEY_OF_OTHER_THREAD))
+				.isEqualTo("dummy value");
+			assertThat(System.getProperty(PROPERTY_KEY)).isNull();
+			assertThat(System.getProperty("property of test thread")).isNull();
+			System.clearProperty(KEY_OF_OTHER_THREAD);
+		}
+	}
 }
@@ -1,16 +1,30 @@
 package org.junit.contrib.java.lang.system;
 
+import static com.github.stefanbirkner.fishbowl.Fishbowl.exceptionThrownBy;
 import static java.lang.String.format;
 import static java.lang.System.*;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.regex.Pattern;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.*;
+import org.junit.experimental.ParallelComputer;
 import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
 import org.junit.runner.RunWith;
 import org.junit.runner.notification.Failure;
 
@@ -372,4 +386,470 @@ public class SystemOutRuleTest {
 			assertThat(failures).isEmpty();
 		}
 	}
+
+	@RunWith(AcceptanceTestRunner.class)
+	public static class part_of_a_byte_array_is_written_to_system_out_and_logged {
+		private static PrintStream originalStream;
+		private static ByteArrayOutputStream captureOutputStream;
+
+		@BeforeClass
+		public static void replaceSystemOut() {
+			originalStream = System.out;
+			captureOutputStream = new ByteArrayOutputStream();
+			setOut(new PrintStream(captureOutputStream));
+		}
+
+		public static class TestClass {
+			@Rule
+			public final SystemOutRule systemOutRule = new SystemOutRule()
+				.enableLog();
+
+			@Test
+			public void test() {
+				System.out.write("--dummy text--".getBytes(), 2, 10);
+				assertThat(systemOutRule.getLog()).isEqualTo("dummy text");
+			}
+		}
+
+		public static void verifyStateAfterTest() {
+			assertThat(captureOutputStream.toString()).isEqualTo("dummy text");
+		}
+
+		@AfterClass
+		public static void restoreOriginalStream() {
+			setOut(originalStream);
+		}
+	}
+
+	public static class log_contains_only_the_last_bytes_if_it_is_limited {
+		@Rule
+		public final SystemOutRule systemOutRule = new SystemOutRule()
+			.enableLog(4);
+
+		@Test
+		public void test() {
+			System.out.print("dummy");
+			System.out.print(" text");
+			assertThat(systemOutRule.getLog()).isEqualTo("text");
+		}
+	}
+
+	public static class limited_log_provides_number_of_dropped_bytes {
+		@Rule
+		public final SystemOutRule systemOutRule = new SystemOutRule()
+			.enableLog(4);
+
+		@Test
+		public void test() {
+			System.out.print("dummy text");
+			assertThat(systemOutRule.getNumberOfDroppedBytes()).isEqualTo(6);
+		}
+	}
+
+	public static class no_bytes_are_dropped_by_an_unlimited_log {
+		@Rule
+		public final SystemOutRule systemOutRule = new SystemOutRule()
+			.enableLog();
+
+		@Test
+		public void test() {
+			System.out.print("dummy text");
+			assertThat(systemOutRule.getNumberOfDroppedBytes()).isZero();
+		}
+	}
+
+	public static class log_contains_all_text_if_it_spills_to_disk {
+		@Rule
+		public final SystemOutRule systemOutRule = new SystemOutRule()
+			.enableLogSpillingToDisk(4);
+
+		@Test
+		public void test() {
+			System.out.print("dummy");
+			System.out.print(" text");
+			assertThat(systemOutRule.getLog()).isEqualTo("dummy text");
+		}
+	}
+
+	public static class log_is_provided_as_input_stream {
+		@Rule
+		public final SystemOutRule systemOutRule = new SystemOutRule()
+			.enableLogSpillingToDisk(4);
+
+		@Test
+		public void test() throws Exception {
+			System.out.print("dummy text");
+			InputStream log = systemOutRule.getLogAsInputStream();
+			assertThat(IOUtils.toString(log)).isEqualTo("dummy text");
+		}
+	}
+
+	@RunWith(AcceptanceTestRunner.class)
+	public static class temporary_file_of_log_is_deleted_after_the_test {
+		private static List<String> originalTemporaryFiles;
+
+		@BeforeClass
+		public static void captureTemporaryFiles() {
+			originalTemporaryFiles = temporaryFilesOfLogs();
+		}
+
+		public static class TestClass {
+			@Rule
+			public final SystemOutRule systemOutRule = new SystemOutRule()
+				.enableLogSpillingToDisk(4);
+
+			@Test
+			public void test() {
+				System.out.print("dummy text");
+			}
+		}
+
+		public static void verifyStateAfterTest() {
+			assertThat(temporaryFilesOfLogs())
+				.isEqualTo(originalTemporaryFiles);
+		}
+
+		private static List<String> temporaryFilesOfLogs() {
+			File temporaryDirectory = new File(getProperty("java.io.tmpdir"));
+			List<String> files = new ArrayList<String>();
+			for (String file: temporaryDirectory.list())
+				if (file.startsWith("system-rules-log"))
+					files.add(file);
+			return files;
+		}
+	}
+
+	public static class text_of_threads_created_by_the_test_is_logged_if_rule_is_scoped_to_test_thread {
+		@Rule
+		public final SystemOutRule systemOutRule = new SystemOutRule()
+			.enableLog()
+			.scopeToTestThread();
+
+		@Test
+		public void test() throws Exception {
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					System.out.print("dummy text");
+				}
+			};
+			thread.start();
+			thread.join();
+			assertThat(systemOutRule.getLog()).isEqualTo("dummy text");
+		}
+	}
+
+	public static class text_of_other_threads_is_not_logged_if_rule_is_scoped_to_test_thread {
+		private static final ByteArrayOutputStream OTHER_THREADS_OUTPUT
+			= new ByteArrayOutputStream();
+		private static final Thread OTHER_THREAD = new Thread() {
+			@Override
+			public void run() {
+				System.out.print("other text");
+			}
+		};
+		private static PrintStream originalStream;
+
+		@BeforeClass
+		public static void replaceSystemOut() {
+			originalStream = System.out;
+			setOut(new PrintStream(OTHER_THREADS_OUTPUT));
+		}
+
+		@Rule
+		public final SystemOutRule systemOutRule = new SystemOutRule()
+			.enableLog()
+			.scopeToTestThread();
+
+		@Test
+		public void test() throws Exception {
+			System.out.print("dummy text");
+			OTHER_THREAD.start();
+			OTHER_THREAD.join();
+			assertThat(systemOutRule.getLog()).isEqualTo("dummy text");
+			assertThat(OTHER_THREADS_OUTPUT.toString()).contains("other text");
+		}
+
+		@AfterClass
+		public static void restoreSystemOut() {
+			setOut(originalStream);
+		}
+	}
+
+	@RunWith(AcceptanceTestRunner.class)
+	public static class after_the_test_system_out_is_same_as_before_if_rule_is_scoped_to_test_thread {
+		private static PrintStream originalStream;
+
+		@BeforeClass
+		public static void captureOriginalStream() {
+			originalStream = System.out;
+		}
+
+		public static class TestClass {
+			@Rule
+			public final SystemOutRule systemOutRule = new SystemOutRule()
+				.scopeToTestThread();
+
+			@Test
+			public void test() {
+				System.out.print("dummy text");
+			}
+		}
+
+		public static void verifyStateAfterTest() {
+			assertThat(System.out).isSameAs(originalStream);
+		}
+	}
+
+	public static class tests_that_are_running_in_parallel_have_separate_logs_if_rule_is_scoped_to_test_thread {
+		@Test
+		public void test() {
+			Result result = JUnitCore.runClasses(
+				ParallelComputer.methods(), TestClass.class);
+			assertThat(result.getFailures()).isEmpty();
+			assertThat(result.getRunCount()).isEqualTo(2);
+		}
+
+		public static class TestClass {
+			private static final CyclicBarrier BARRIER = new CyclicBarrier(2);
+
+			@Rule
+			public final SystemOutRule systemOutRule = new SystemOutRule()
+				.enableLog()
+				.mute()
+				.scopeToTestThread();
+
+			@Test
+			public void first() throws Exception {
+				writeConcurrently("first");
+			}
+
+			@Test
+			public void second() throws Exception {
+				writeConcurrently("second");
+			}
+
+			private void writeConcurrently(String text) throws Exception {
+				BARRIER.await(10, SECONDS);
+				StringBuilder expectedLog = new StringBuilder();
+				for (int i = 0; i < 1000; ++i) {
+					System.out.print(text);
+					expectedLog.append(text);
+				}
+				BARRIER.await(10, SECONDS);
+				assertThat(systemOutRule.getLog())
+					.isEqualTo(expectedLog.toString());
+			}
+		}
+	}
+
+	public static class log_is_provided_line_by_line {
+		@Rule
+		public final SystemOutRule systemOutRule = new SystemOutRule()
+			.enableLog();
+
+		@Test
+		public void test() {
+			System.out.print(format("first line%nsecond line%nthird"));
+			Iterator<String> lines = systemOutRule.getLogLines();
+			assertThat(lines.next()).isEqualTo("first line");
+			assertThat(lines.next()).isEqualTo("second line");
+			assertThat(lines.hasNext()).isFalse();
+		}
+	}
+
+	public static class iterator_of_log_lines_provides_lines_that_are_written_later {
+		@Rule
+		public final SystemOutRule systemOutRule = new SystemOutRule()
+			.enableLog();
+
+		@Test
+		public void test() {
+			Iterator<String> lines = systemOutRule.getLogLines();
+			System.out.print("first ");
+			assertThat(lines.hasNext()).isFalse();
+			System.out.println("line");
+			assertThat(lines.next()).isEqualTo("first line");
+			System.out.println("second line");
+			assertThat(lines.next()).isEqualTo("second line");
+		}
+	}
+
+	public static class iterator_of_log_lines_continues_with_new_text_after_log_was_cleared {
+		@Rule
+		public final SystemOutRule systemOutRule = new SystemOutRule()
+			.enableLog();
+
+		@Test
+		public void test() {
+			Iterator<String> lines = systemOutRule.getLogLines();
+			System.out.print("text before clearing");
+			assertThat(lines.hasNext()).isFalse();
+			systemOutRule.clearLog();
+			System.out.println("text after clearing");
+			assertThat(lines.next()).isEqualTo("text after clearing");
+		}
+	}
+
+	public static class awaitLog_returns_line_that_is_written_by_another_thread {
+		@Rule
+		public final SystemOutRule systemOutRule = new SystemOutRule()
+			.enableLog();
+
+		@Test
+		public void test() throws Exception {
+			new Thread() {
+				@Override
+				public void run() {
+					try {
+						sleep(100);
+					} catch (InterruptedException e) {
+						throw new RuntimeException(e);
+					}
+					System.out.println("server is ready");
+				}
+			}.start();
+			String line = systemOutRule.awaitLog(
+				Pattern.compile("ready"), 10, SECONDS);
+			assertThat(line).isEqualTo("server is ready");
+		}
+	}
+
+	public static class awaitLog_returns_line_that_has_already_been_written {
+		@Rule
+		public final SystemOutRule systemOutRule = new SystemOutRule()
+			.enableLog();
+
+		@Test
+		public void test() throws Exception {
+			System.out.print("server is ready");
+			String line = systemOutRule.awaitLog(
+				Pattern.compile("ready"), 0, SECONDS);
+			assertThat(line).isEqualTo("server is ready");
+		}
+	}
+
+	public static class awaitLog_fails_if_no_line_matches_within_timeout {
+		@Rule
+		public final SystemOutRule systemOutRule = new SystemOutRule()
+			.enableLog();
+
+		@Test
+		public void test() throws Exception {
+			System.out.println("server is starting");
+			Throwable exception = exceptionThrownBy(
+				new com.github.stefanbirkner.fishbowl.Statement() {
+					public void evaluate() throws Throwable {
+						systemOutRule.awaitLog(
+							Pattern.compile("ready"), 100, MILLISECONDS);
+					}
+				});
+			assertThat(exception)
+				.isInstanceOf(AssertionError.class)
+				.hasMessage("The log has no line that matches the pattern"
+					+ " \"ready\" after 100 MILLISECONDS.");
+		}
+	}
+
+	public static class log_contains_multi_byte_characters_that_are_written_byte_by_byte {
+		@Rule
+		public final SystemOutRule systemOutRule = new SystemOutRule()
+			.enableLog();
+
+		@Test
+		public void test() {
+			byte[] text = "\u00e4\u00f6\u00fc \u20ac".getBytes();
+			for (byte b: text) {
+				systemOutRule.getLog();
+				System.out.write(b);
+			}
+			assertThat(systemOutRule.getLog()).isEqualTo(new String(text));
+		}
+	}
+
+	public static class log_is_not_decoded_again_if_nothing_has_been_written {
+		@Rule
+		public final SystemOutRule systemOutRule = new SystemOutRule()
+			.enableLog();
+
+		@Test
+		public void test() {
+			System.out.print("dummy text");
+			String log = systemOutRule.getLog();
+			assertThat(systemOutRule.getLog()).isSameAs(log);
+		}
+	}
+
+	@RunWith(AcceptanceTestRunner.class)
+	public static class text_is_written_to_system_out_immediately_if_buffering_is_enabled {
+		private static PrintStream originalStream;
+		private static ByteArrayOutputStream captureOutputStream;
+		private static String textDuringTest;
+
+		@BeforeClass
+		public static void replaceSystemOut() {
+			originalStream = System.out;
+			captureOutputStream = new ByteArrayOutputStream();
+			setOut(new PrintStream(captureOutputStream));
+		}
+
+		public static class TestClass {
+			@Rule
+			public final SystemOutRule systemOutRule = new SystemOutRule()
+				.enableBuffering();
+
+			@Test
+			public void test() {
+				System.out.println("dummy text");
+				textDuringTest = captureOutputStream.toString();
+			}
+		}
+
+		public static void verifyStateAfterTest() {
+			assertThat(textDuringTest).isEqualTo(format("dummy text%n"));
+			assertThat(captureOutputStream.toString())
+				.isEqualTo(format("dummy text%n"));
+		}
+
+		@AfterClass
+		public static void restoreOriginalStream() {
+			setOut(originalStream);
+		}
+	}
+
+	public static class buffered_text_is_logged_when_log_is_read {
+		@Rule
+		public final SystemOutRule systemOutRule = new SystemOutRule()
+			.enableLog()
+			.enableBuffering();
+
+		@Test
+		public void test() {
+			System.out.print("first text");
+			assertThat(systemOutRule.getLog()).isEqualTo("first text");
+			System.out.print(" and second text");
+			assertThat(systemOutRule.getLog())
+				.isEqualTo("first text and second text");
+		}
+	}
+
+	public static class awaitLog_returns_buffered_line_that_is_written_by_another_thread {
+		@Rule
+		public final SystemOutRule systemOutRule = new SystemOutRule()
+			.enableLog()
+			.enableBuffering();
+
+		@Test
+		public void test() throws Exception {
+			new Thread() {
+				@Override
+				public void run() {
+					System.out.println("server is ready");
+				}
+			}.start();
+			String line = systemOutRule.awaitLog(
+				Pattern.compile("ready"), 10, SECONDS);
+			assertThat(line).isEqualTo("server is ready");
+		}
+	}
 }
@@ -3,17 +3,39 @@ package org.junit.contrib.java.lang.system;
 import static com.github.stefanbirkner.fishbowl.Fishbowl.exceptionThrownBy;
 import static java.lang.System.getProperty;
 import static java.lang.System.in;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.commons.io.FileUtils.writeStringToFile;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
 import static org.junit.contrib.java.lang.system.TextFromStandardInputStream.emptyStandardInputStream;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.Iterator;
 import java.util.Scanner;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.BeforeClass;
+import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.experimental.ParallelComputer;
 import org.junit.experimental.runners.Enclosed;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
 import org.junit.runner.RunWith;
 import org.junit.runner.notification.Failure;
 
@@ -140,6 +162,39 @@ public class TextFromStandardInputStreamTest {
 		}
 	}
 
+	public static class system_in_throws_requested_IOException_if_input_ends_while_skipping {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() {
+			systemInMock.provideText("arbitrary text");
+			systemInMock.throwExceptionOnInputEnd(DUMMY_IO_EXCEPTION);
+			Throwable exception = exceptionThrownBy(
+				new com.github.stefanbirkner.fishbowl.Statement() {
+					public void evaluate() throws Throwable {
+						System.in.skip(100);
+					}
+				});
+			assertThat(exception).isSameAs(DUMMY_IO_EXCEPTION);
+		}
+	}
+
+	public static class skipped_bytes_are_counted_by_statistics {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() throws Exception {
+			systemInMock.provideText("arbitrary text");
+			assertThat(System.in.skip(9)).isEqualTo(9);
+			assertThat(systemInMock.getStatistics().getNumberOfBytesRead())
+				.isEqualTo(9);
+		}
+	}
+
 	public static class system_in_provides_specified_text_and_throws_requested_RuntimeException_afterwards {
 		@Rule
 		public final TextFromStandardInputStream systemInMock
@@ -388,4 +443,769 @@ public class TextFromStandardInputStreamTest {
 		for (char c : text.toCharArray())
 			assertThat((char) System.in.read()).isSameAs(c);
 	}
+
+	public static class system_in_reads_a_single_line_at_once_by_default {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() throws Exception {
+			systemInMock.provideLines("first line", "second line");
+			byte[] buffer = new byte[1024];
+			int numBytesRead = System.in.read(buffer);
+			assertThat(new String(buffer, 0, numBytesRead))
+				.isEqualTo("first line" + getProperty("line.separator"));
+		}
+	}
+
+	public static class system_in_reads_multiple_lines_at_once_if_bulk_reads_are_enabled {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() throws Exception {
+			systemInMock.enableBulkReads();
+			systemInMock.provideLines("first line", "second line");
+			byte[] buffer = new byte[1024];
+			int numBytesRead = System.in.read(buffer);
+			String lineSeparator = getProperty("line.separator");
+			assertThat(new String(buffer, 0, numBytesRead))
+				.isEqualTo("first line" + lineSeparator
+					+ "second line" + lineSeparator);
+		}
+	}
+
+	public static class system_in_reads_text_without_line_separator_before_it_throws_requested_exception {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() throws Exception {
+			systemInMock.provideText("arbitrary text");
+			systemInMock.throwExceptionOnInputEnd(DUMMY_IO_EXCEPTION);
+			byte[] buffer = new byte[1024];
+			int numBytesRead = System.in.read(buffer);
+			assertThat(new String(buffer, 0, numBytesRead))
+				.isEqualTo("arbitrary text");
+		}
+	}
+
+	public static class system_in_provides_the_number_of_available_bytes {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() throws Exception {
+			systemInMock.provideText("arbitrary text");
+			System.in.read();
+			assertThat(System.in.available()).isEqualTo(13);
+		}
+	}
+
+	public static class system_in_skips_bytes {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() throws Exception {
+			systemInMock.provideText("arbitrary text");
+			System.in.read();
+			long numBytesSkipped = System.in.skip(9);
+			assertThat(numBytesSkipped).isEqualTo(9);
+			assertSystemInProvidesText("text");
+		}
+	}
+
+	public static class content_of_provided_file_is_available_from_system_in {
+		@Rule
+		public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() throws Exception {
+			File file = temporaryFolder.newFile();
+			writeStringToFile(file, "text from file");
+			systemInMock.provideFile(file.getAbsolutePath());
+			assertThat(IOUtils.toString(System.in)).isEqualTo("text from file");
+		}
+	}
+
+	public static class file_that_cannot_be_read_is_rejected {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() {
+			Throwable exception = exceptionThrownBy(
+				new com.github.stefanbirkner.fishbowl.Statement() {
+					public void evaluate() throws Throwable {
+						systemInMock.provideFile("/non/existing/file");
+					}
+				});
+			assertThat(exception)
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Cannot provide file \"/non/existing/file\""
+					+ " because it cannot be read.");
+		}
+	}
+
+	public static class content_of_provided_resource_is_available_from_system_in {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() throws Exception {
+			systemInMock.provideResource("example-input.txt");
+			assertThat(IOUtils.toString(System.in))
+				.isEqualTo("text from resource");
+		}
+	}
+
+	public static class non_existing_resource_is_rejected {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() {
+			Throwable exception = exceptionThrownBy(
+				new com.github.stefanbirkner.fishbowl.Statement() {
+					public void evaluate() throws Throwable {
+						systemInMock.provideResource("non-existing-resource");
+					}
+				});
+			assertThat(exception)
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Cannot provide resource \"non-existing-resource\""
+					+ " because it does not exist.");
+		}
+	}
+
+	public static class lines_from_iterator_are_available_from_system_in {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() {
+			systemInMock.provideLines(
+				asList("first text", "second text").iterator());
+			Scanner scanner = new Scanner(in);
+			scanner.nextLine();
+			assertThat(scanner.nextLine()).isEqualTo("second text");
+		}
+	}
+
+	public static class long_line_from_iterator_is_available_from_system_in {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() {
+			String longLine = new String(new char[100000]).replace('\0', 'x');
+			systemInMock.provideLines(asList(longLine).iterator());
+			Scanner scanner = new Scanner(in);
+			assertThat(scanner.nextLine()).isEqualTo(longLine);
+		}
+	}
+
+	public static class lines_from_iterator_are_requested_when_they_are_read {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() throws Exception {
+			final AtomicInteger numberOfLines = new AtomicInteger();
+			systemInMock.provideLines(new Iterator<String>() {
+				public boolean hasNext() {
+					return true;
+				}
+
+				public String next() {
+					return "line " + numberOfLines.incrementAndGet();
+				}
+
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			});
+			Scanner scanner = new Scanner(in);
+			assertThat(scanner.nextLine()).isEqualTo("line 1");
+			assertThat(numberOfLines.get()).isLessThan(10000);
+		}
+	}
+
+	public static class appended_lines_are_read_by_a_thread_that_waits_for_input {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() throws Exception {
+			systemInMock.enableLiveInput();
+			final BlockingQueue<String> linesRead
+				= new LinkedBlockingQueue<String>();
+			Thread reader = new Thread() {
+				@Override
+				public void run() {
+					BufferedReader br = new BufferedReader(
+						new InputStreamReader(System.in));
+					try {
+						String line;
+						while ((line = br.readLine()) != null)
+							linesRead.add(line);
+						linesRead.add("end of input");
+					} catch (IOException e) {
+						linesRead.add(e.toString());
+					}
+				}
+			};
+			reader.start();
+			systemInMock.appendLines("first line");
+			assertThat(linesRead.poll(10, SECONDS)).isEqualTo("first line");
+			systemInMock.appendLines("second line");
+			assertThat(linesRead.poll(10, SECONDS)).isEqualTo("second line");
+			systemInMock.closeInput();
+			assertThat(linesRead.poll(10, SECONDS)).isEqualTo("end of input");
+			reader.join();
+		}
+	}
+
+	public static class system_in_provides_the_number_of_appended_bytes {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() throws Exception {
+			systemInMock.enableLiveInput();
+			systemInMock.appendLines("first line", "second line");
+			System.in.read();
+			assertThat(System.in.available()).isEqualTo(
+				20 + 2 * getProperty("line.separator").length());
+		}
+	}
+
+	public static class system_in_provides_appended_lines_and_throws_requested_exception_after_input_has_been_closed {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() throws Exception {
+			systemInMock.enableLiveInput();
+			systemInMock.throwExceptionOnInputEnd(DUMMY_IO_EXCEPTION);
+			systemInMock.appendLines("arbitrary text");
+			systemInMock.closeInput();
+			assertSystemInProvidesText(
+				"arbitrary text" + getProperty("line.separator"));
+			Throwable exception = exceptionThrownBy(READ_NEXT_BYTE);
+			assertThat(exception).isSameAs(DUMMY_IO_EXCEPTION);
+		}
+	}
+
+	@RunWith(AcceptanceTestRunner.class)
+	public static class lines_cannot_be_appended_if_live_input_has_not_been_enabled {
+		public static class TestClass {
+			@Rule
+			public final TextFromStandardInputStream systemInMock
+				= emptyStandardInputStream();
+
+			@Test
+			public void test() {
+				systemInMock.appendLines("arbitrary line");
+			}
+		}
+
+		public static void expectFailure(Failure failure) {
+			assertThat(failure.getMessage())
+				.isEqualTo("You cannot call appendLines(String...) because"
+					+ " live input has not been enabled. Please call"
+					+ " enableLiveInput() before.");
+		}
+	}
+
+	@RunWith(AcceptanceTestRunner.class)
+	public static class lines_cannot_be_appended_after_input_has_been_closed {
+		public static class TestClass {
+			@Rule
+			public final TextFromStandardInputStream systemInMock
+				= emptyStandardInputStream();
+
+			@Test
+			public void test() {
+				systemInMock.enableLiveInput();
+				systemInMock.closeInput();
+				systemInMock.appendLines("arbitrary line");
+			}
+		}
+
+		public static void expectFailure(Failure failure) {
+			assertThat(failure.getMessage())
+				.isEqualTo("You cannot call appendLines(String...) because"
+					+ " closeInput() has already been called.");
+		}
+	}
+
+	public static class appended_lines_that_exceed_the_buffer_are_read_completely {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() throws Exception {
+			systemInMock.enableLiveInput();
+			final BlockingQueue<String> linesRead
+				= new LinkedBlockingQueue<String>();
+			Thread reader = new Thread() {
+				@Override
+				public void run() {
+					Scanner scanner = new Scanner(System.in);
+					while (scanner.hasNextLine())
+						linesRead.add(scanner.nextLine());
+				}
+			};
+			reader.start();
+			String line = new String(new char[999]).replace('\0', 'x');
+			for (int i = 0; i < 1000; ++i)
+				systemInMock.appendLines(line + i);
+			systemInMock.closeInput();
+			reader.join(10000);
+			assertThat(linesRead).hasSize(1000);
+			assertThat(linesRead.toArray()[999]).isEqualTo(line + 999);
+		}
+	}
+
+	public static class system_in_reads_limited_number_of_bytes {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() throws Exception {
+			systemInMock.enableBulkReads();
+			systemInMock.limitBytesPerRead(3);
+			systemInMock.provideText("arbitrary text");
+			byte[] buffer = new byte[1024];
+			int numBytesRead = System.in.read(buffer);
+			assertThat(new String(buffer, 0, numBytesRead)).isEqualTo("arb");
+		}
+	}
+
+	public static class system_in_provides_limited_number_of_bytes_per_second {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() throws Exception {
+			systemInMock.enableBulkReads();
+			systemInMock.limitBytesPerSecond(1000);
+			systemInMock.provideText(new String(new char[250]));
+			long start = System.nanoTime();
+			int numberOfReads = 0;
+			while (System.in.read(DUMMY_ARRAY) != -1)
+				++numberOfReads;
+			//the first 50 bytes are available immediately
+			assertThat(System.nanoTime() - start)
+				.isGreaterThanOrEqualTo(MILLISECONDS.toNanos(190));
+			assertThat(numberOfReads).isGreaterThanOrEqualTo(5);
+		}
+	}
+
+	@RunWith(AcceptanceTestRunner.class)
+	public static class number_of_bytes_per_read_must_be_positive {
+		public static class TestClass {
+			@Rule
+			public final TextFromStandardInputStream systemInMock
+				= emptyStandardInputStream();
+
+			@Test
+			public void test() {
+				systemInMock.limitBytesPerRead(0);
+			}
+		}
+
+		public static void expectFailure(Failure failure) {
+			assertThat(failure.getMessage())
+				.isEqualTo("The maximum number of bytes per read must be"
+					+ " positive but is 0.");
+		}
+	}
+
+	public static class text_is_encoded_with_specified_charset {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() {
+			systemInMock.useCharset(Charset.forName("UTF-8"));
+			systemInMock.provideLines("\u00e4\u00f6\u00fc \u20ac");
+			Scanner scanner = new Scanner(in, "UTF-8");
+			assertThat(scanner.nextLine()).isEqualTo("\u00e4\u00f6\u00fc \u20ac");
+		}
+	}
+
+	public static class system_in_reads_a_single_line_of_text_with_byte_order_mark {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() throws Exception {
+			systemInMock.useCharset(Charset.forName("UTF-16"));
+			systemInMock.provideLines("first line", "second line");
+			byte[] buffer = new byte[1024];
+			int numBytesRead = System.in.read(buffer);
+			assertThat(new String(buffer, 0, numBytesRead, "UTF-16"))
+				.isEqualTo("first line" + getProperty("line.separator"));
+		}
+	}
+
+	public static class lines_from_iterator_are_encoded_with_specified_charset {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() {
+			systemInMock.useCharset(Charset.forName("UTF-16"));
+			systemInMock.provideLines(
+				asList("first \u00e4", "second \u20ac").iterator());
+			Scanner scanner = new Scanner(in, "UTF-16");
+			assertThat(scanner.nextLine()).isEqualTo("first \u00e4");
+			assertThat(scanner.nextLine()).isEqualTo("second \u20ac");
+		}
+	}
+
+	public static class appended_lines_are_encoded_with_specified_charset {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() throws Exception {
+			systemInMock.useCharset(Charset.forName("UTF-16"));
+			systemInMock.enableLiveInput();
+			systemInMock.appendLines("first \u00e4");
+			systemInMock.appendLines("second \u20ac");
+			systemInMock.closeInput();
+			String lineSeparator = getProperty("line.separator");
+			assertThat(IOUtils.toString(System.in, "UTF-16"))
+				.isEqualTo("first \u00e4" + lineSeparator
+					+ "second \u20ac" + lineSeparator);
+		}
+	}
+
+	public static class text_is_available_from_system_in_of_a_thread_that_is_created_by_the_test_if_rule_is_scoped_to_test_thread {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream().scopeToTestThread();
+
+		@Test
+		public void test() throws Exception {
+			systemInMock.provideLines("arbitrary text");
+			final BlockingQueue<String> linesRead
+				= new LinkedBlockingQueue<String>();
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					linesRead.add(new Scanner(System.in).nextLine());
+				}
+			};
+			thread.start();
+			thread.join();
+			assertThat(linesRead.poll()).isEqualTo("arbitrary text");
+		}
+	}
+
+	public static class other_threads_read_original_system_in_if_rule_is_scoped_to_test_thread {
+		private static final BlockingQueue<String> LINES_OF_OTHER_THREAD
+			= new LinkedBlockingQueue<String>();
+		private static final Thread OTHER_THREAD = new Thread() {
+			@Override
+			public void run() {
+				LINES_OF_OTHER_THREAD.add(new Scanner(System.in).nextLine());
+			}
+		};
+
+		@ClassRule
+		public static final TextFromStandardInputStream ORIGINAL_SYSTEM_IN_MOCK
+			= emptyStandardInputStream();
+
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream().scopeToTestThread();
+
+		@Test
+		public void test() throws Exception {
+			ORIGINAL_SYSTEM_IN_MOCK.provideLines("original text");
+			systemInMock.provideLines("test text");
+			OTHER_THREAD.start();
+			OTHER_THREAD.join();
+			assertThat(LINES_OF_OTHER_THREAD.poll()).isEqualTo("original text");
+			assertThat(new Scanner(System.in).nextLine()).isEqualTo("test text");
+		}
+	}
+
+	@RunWith(AcceptanceTestRunner.class)
+	public static class after_the_test_system_in_is_same_as_before_if_rule_is_scoped_to_test_thread {
+		private static InputStream originalSystemIn;
+
+		@BeforeClass
+		public static void captureSystemIn() {
+			originalSystemIn = System.in;
+		}
+
+		public static class TestClass {
+			@Rule
+			public final TextFromStandardInputStream systemInMock
+				= emptyStandardInputStream().scopeToTestThread();
+
+			@Test
+			public void test() {
+			}
+		}
+
+		public static void verifyStateAfterTest() {
+			assertThat(System.in).isSameAs(originalSystemIn);
+		}
+	}
+
+	public static class tests_that_are_running_in_parallel_read_their_own_text_if_rule_is_scoped_to_test_thread {
+		@Test
+		public void test() {
+			Result result = JUnitCore.runClasses(
+				ParallelComputer.methods(), TestClass.class);
+			assertThat(result.getFailures()).isEmpty();
+			assertThat(result.getRunCount()).isEqualTo(2);
+		}
+
+		public static class TestClass {
+			private static final CyclicBarrier BARRIER = new CyclicBarrier(2);
+
+			@Rule
+			public final TextFromStandardInputStream systemInMock
+				= emptyStandardInputStream().scopeToTestThread();
+
+			@Test
+			public void first() throws Exception {
+				readConcurrently("first");
+			}
+
+			@Test
+			public void second() throws Exception {
+				readConcurrently("second");
+			}
+
+			private void readConcurrently(String text) throws Exception {
+				String[] lines = new String[1000];
+				for (int i = 0; i < lines.length; ++i)
+					lines[i] = text + " " + i;
+				systemInMock.provideLines(lines);
+				BARRIER.await(10, SECONDS);
+				Scanner scanner = new Scanner(System.in);
+				for (String line: lines)
+					assertThat(scanner.nextLine()).isEqualTo(line);
+			}
+		}
+	}
+
+	public static class statistics_count_reads_and_bytes {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() throws Exception {
+			systemInMock.provideText("arbitrary text");
+			System.in.read();
+			System.in.read(DUMMY_ARRAY);
+			TextFromStandardInputStream.Statistics statistics
+				= systemInMock.getStatistics();
+			assertThat(statistics.getNumberOfSingleByteReads()).isEqualTo(1);
+			assertThat(statistics.getNumberOfByteArrayReads()).isEqualTo(1);
+			assertThat(statistics.getNumberOfReads()).isEqualTo(2);
+			assertThat(statistics.getNumberOfBytesRead()).isEqualTo(14);
+		}
+	}
+
+	public static class statistics_contain_time_that_reads_have_been_waiting {
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() throws Exception {
+			systemInMock.enableBulkReads();
+			systemInMock.limitBytesPerSecond(1000);
+			systemInMock.provideText(new String(new char[150]));
+			while (System.in.read(DUMMY_ARRAY) != -1);
+			assertThat(systemInMock.getStatistics().getTimeBlocked(MILLISECONDS))
+				.isGreaterThanOrEqualTo(90);
+		}
+	}
+
+	@RunWith(AcceptanceTestRunner.class)
+	public static class statistics_are_added_to_failure_if_test_fails {
+		public static class TestClass {
+			@Rule
+			public final TextFromStandardInputStream systemInMock
+				= emptyStandardInputStream().reportStatisticsOnFailure();
+
+			@Test
+			public void test() throws Exception {
+				systemInMock.provideText("arbitrary text");
+				System.in.read();
+				fail("arbitrary failure");
+			}
+		}
+
+		public static void expectFailure(Failure failure) {
+			assertThat(failure.getException())
+				.isInstanceOf(AssertionError.class)
+				.hasMessage("arbitrary failure"
+					+ getProperty("line.separator")
+					+ "System.in has been read 1 times (1 single bytes, 0 byte"
+					+ " arrays). 1 bytes have been read. Reads have been"
+					+ " waiting for input for 0 ms.");
+			assertThat(failure.getException().getCause())
+				.hasMessage("arbitrary failure");
+		}
+	}
+
+	@RunWith(AcceptanceTestRunner.class)
+	public static class other_exception_is_not_changed_if_statistics_are_reported {
+		public static class TestClass {
+			@Rule
+			public final TextFromStandardInputStream systemInMock
+				= emptyStandardInputStream().reportStatisticsOnFailure();
+
+			@Test
+			public void test() throws Exception {
+				throw new IOException("arbitrary exception");
+			}
+		}
+
+		public static void expectFailure(Failure failure) {
+			assertThat(failure.getException())
+				.isExactlyInstanceOf(IOException.class)
+				.hasMessage("arbitrary exception");
+		}
+	}
+
+	public static class violated_assumption_is_not_wrapped_if_statistics_are_reported {
+		@Test
+		public void test() {
+			Result result = JUnitCore.runClasses(TestClass.class);
+			assertThat(result.getFailures()).isEmpty();
+			assertThat(result.getRunCount()).isEqualTo(1);
+		}
+
+		public static class TestClass {
+			@Rule
+			public final TextFromStandardInputStream systemInMock
+				= emptyStandardInputStream().reportStatisticsOnFailure();
+
+			@Test
+			public void test() {
+				assumeTrue(false);
+			}
+		}
+	}
+
+	public static class recorded_chunks_are_read_from_system_in {
+		@Rule
+		public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() throws Exception {
+			File file = temporaryFolder.newFile();
+			InputStream recordingStream = new RecordingInputStream(
+				new ByteArrayInputStream("first second".getBytes()),
+				file.getAbsolutePath());
+			recordingStream.read(new byte[6]);
+			recordingStream.read(new byte[100]);
+			recordingStream.close();
+			systemInMock.enableBulkReads();
+			systemInMock.provideRecording(file.getAbsolutePath());
+			byte[] buffer = new byte[100];
+			int lengthOfFirstChunk = System.in.read(buffer);
+			int lengthOfSecondChunk = System.in.read(buffer, 6, 94);
+			assertThat(new String(buffer, 0, 12)).isEqualTo("first second");
+			assertThat(asList(lengthOfFirstChunk, lengthOfSecondChunk,
+				System.in.read(buffer))).containsExactly(6, 6, -1);
+		}
+	}
+
+	public static class recorded_chunks_are_read_from_system_in_with_recorded_delays {
+		@Rule
+		public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() throws Exception {
+			File file = temporaryFolder.newFile();
+			InputStream recordingStream = new RecordingInputStream(
+				new ByteArrayInputStream("ab".getBytes()),
+				file.getAbsolutePath());
+			recordingStream.read();
+			Thread.sleep(200);
+			recordingStream.read();
+			recordingStream.close();
+			systemInMock.provideRecordingWithDelays(file.getAbsolutePath());
+			System.in.read();
+			long start = System.nanoTime();
+			System.in.read();
+			assertThat(System.nanoTime() - start)
+				.isGreaterThanOrEqualTo(MILLISECONDS.toNanos(150));
+		}
+	}
+
+	public static class file_that_is_not_a_recording_is_rejected {
+		@Rule
+		public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+		@Rule
+		public final TextFromStandardInputStream systemInMock
+			= emptyStandardInputStream();
+
+		@Test
+		public void test() throws Exception {
+			final File file = temporaryFolder.newFile();
+			writeStringToFile(file, "arbitrary text");
+			Throwable exception = exceptionThrownBy(
+				new com.github.stefanbirkner.fishbowl.Statement() {
+					public void evaluate() throws Throwable {
+						systemInMock.provideRecording(file.getAbsolutePath());
+					}
+				});
+			assertThat(exception)
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Cannot provide recording \"" + file.getAbsolutePath()
+					+ "\" because it cannot be read.");
+			assertThat(exception.getCause())
+				.hasMessage("The file is not a recording of System.in.");
+		}
+	}
 }
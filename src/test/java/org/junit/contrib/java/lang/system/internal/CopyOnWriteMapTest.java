@@ -0,0 +1,150 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+
+@RunWith(Enclosed.class)
+public class CopyOnWriteMapTest {
+	private static Map<String, String> createOriginal() {
+		Map<String, String> original = new HashMap<String, String>();
+		original.put("first", "first value");
+		original.put("second", "second value");
+		return original;
+	}
+
+	public static class map_provides_original_entries {
+		@Test
+		public void test() {
+			Map<String, String> map
+				= new CopyOnWriteMap<String, String>(createOriginal());
+			assertThat(map).isEqualTo(createOriginal()).hasSize(2);
+		}
+	}
+
+	public static class changes_do_not_modify_the_original_map {
+		@Test
+		public void test() {
+			Map<String, String> original = createOriginal();
+			Map<String, String> map
+				= new CopyOnWriteMap<String, String>(original);
+			map.put("first", "another value");
+			map.remove("second");
+			map.put("third", "third value");
+			assertThat(original).isEqualTo(createOriginal());
+		}
+	}
+
+	public static class map_provides_changed_entries {
+		@Test
+		public void test() {
+			Map<String, String> map
+				= new CopyOnWriteMap<String, String>(createOriginal());
+			map.put("first", "another value");
+			map.remove("second");
+			map.put("third", "third value");
+			Map<String, String> expected = new HashMap<String, String>();
+			expected.put("first", "another value");
+			expected.put("third", "third value");
+			assertThat(map).isEqualTo(expected).hasSize(2);
+			assertThat(map.get("second")).isNull();
+			assertThat(map.containsKey("second")).isFalse();
+		}
+	}
+
+	public static class removed_entry_can_be_added_again {
+		@Test
+		public void test() {
+			Map<String, String> map
+				= new CopyOnWriteMap<String, String>(createOriginal());
+			map.remove("second");
+			map.put("second", "another value");
+			assertThat(map)
+				.containsEntry("second", "another value")
+				.hasSize(2);
+		}
+	}
+
+	public static class added_entry_can_be_removed_again {
+		@Test
+		public void test() {
+			Map<String, String> map
+				= new CopyOnWriteMap<String, String>(createOriginal());
+			map.put("third", "third value");
+			map.remove("third");
+			assertThat(map).isEqualTo(createOriginal()).hasSize(2);
+		}
+	}
+
+	public static class entries_can_be_added_after_clear {
+		@Test
+		public void test() {
+			Map<String, String> map
+				= new CopyOnWriteMap<String, String>(createOriginal());
+			map.clear();
+			assertThat(map).isEmpty();
+			map.put("first", "another value");
+			map.put("third", "third value");
+			Map<String, String> expected = new HashMap<String, String>();
+			expected.put("first", "another value");
+			expected.put("third", "third value");
+			assertThat(map).isEqualTo(expected).hasSize(2);
+		}
+	}
+
+	public static class entry_can_be_removed_by_iterator {
+		@Test
+		public void test() {
+			Map<String, String> map
+				= new CopyOnWriteMap<String, String>(createOriginal());
+			Iterator<Map.Entry<String, String>> entries
+				= map.entrySet().iterator();
+			while (entries.hasNext())
+				if (entries.next().getKey().equals("first"))
+					entries.remove();
+			assertThat(map).containsOnlyKeys("second").hasSize(1);
+		}
+	}
+
+	public static class value_can_be_changed_by_entry {
+		@Test
+		public void test() {
+			Map<String, String> original = createOriginal();
+			Map<String, String> map
+				= new CopyOnWriteMap<String, String>(original);
+			for (Map.Entry<String, String> entry : map.entrySet())
+				if (entry.getKey().equals("first"))
+					assertThat(entry.setValue("another value"))
+						.isEqualTo("first value");
+			assertThat(map).containsEntry("first", "another value").hasSize(2);
+			assertThat(original).isEqualTo(createOriginal());
+		}
+	}
+
+	public static class changes_can_be_applied_to_another_map {
+		@Test
+		public void test() {
+			CopyOnWriteMap<String, String> base
+				= new CopyOnWriteMap<String, String>(createOriginal());
+			base.put("first", "another value");
+			CopyOnWriteMap<String, String> map
+				= new CopyOnWriteMap<String, String>(base);
+			map.remove("second");
+			map.put("third", "third value");
+			Map<String, String> target = createOriginal();
+			target.put("fourth", "fourth value");
+			map.applyChangesTo(target);
+			Map<String, String> expected = new HashMap<String, String>();
+			expected.put("first", "another value");
+			expected.put("third", "third value");
+			expected.put("fourth", "fourth value");
+			assertThat(target).isEqualTo(expected);
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Iterator;
+import java.util.Properties;
+
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+
+@RunWith(Enclosed.class)
+public class CopyOnWritePropertiesTest {
+	private static Properties createOriginal() {
+		Properties original = new Properties();
+		original.setProperty("first", "first value");
+		original.setProperty("second", "second value");
+		return original;
+	}
+
+	public static class properties_provide_original_entries {
+		@Test
+		public void test() {
+			Properties properties = new CopyOnWriteProperties(createOriginal());
+			assertThat(properties).isEqualTo(createOriginal());
+		}
+	}
+
+	public static class changes_do_not_modify_the_original_properties {
+		@Test
+		public void test() {
+			Properties original = createOriginal();
+			Properties properties = new CopyOnWriteProperties(original);
+			properties.setProperty("first", "another value");
+			properties.remove("second");
+			properties.setProperty("third", "third value");
+			assertThat(original).isEqualTo(createOriginal());
+		}
+	}
+
+	public static class properties_provide_changed_entries {
+		@Test
+		public void test() {
+			Properties properties = new CopyOnWriteProperties(createOriginal());
+			properties.setProperty("first", "another value");
+			properties.remove("second");
+			properties.setProperty("third", "third value");
+			Properties expected = new Properties();
+			expected.setProperty("first", "another value");
+			expected.setProperty("third", "third value");
+			assertThat(properties).isEqualTo(expected).hasSize(2);
+			assertThat(properties.getProperty("second")).isNull();
+		}
+	}
+
+	public static class removed_entry_can_be_added_again {
+		@Test
+		public void test() {
+			Properties properties = new CopyOnWriteProperties(createOriginal());
+			properties.remove("first");
+			properties.setProperty("first", "another value");
+			assertThat(properties)
+				.containsEntry("first", "another value")
+				.hasSize(2);
+		}
+	}
+
+	public static class properties_are_empty_after_clear {
+		@Test
+		public void test() {
+			Properties properties = new CopyOnWriteProperties(createOriginal());
+			properties.setProperty("third", "third value");
+			properties.clear();
+			assertThat(properties).isEmpty();
+			assertThat(properties.getProperty("first")).isNull();
+		}
+	}
+
+	public static class entry_can_be_removed_by_iterator_of_key_set {
+		@Test
+		public void test() {
+			Properties properties = new CopyOnWriteProperties(createOriginal());
+			Iterator<Object> keys = properties.keySet().iterator();
+			Object removedKey = keys.next();
+			keys.remove();
+			assertThat(properties)
+				.doesNotContainKey(removedKey)
+				.hasSize(1);
+		}
+	}
+
+	public static class defaults_of_original_properties_are_provided {
+		@Test
+		public void test() {
+			Properties defaults = new Properties();
+			defaults.setProperty("default", "default value");
+			Properties properties = new CopyOnWriteProperties(
+				new Properties(defaults));
+			assertThat(properties.getProperty("default"))
+				.isEqualTo("default value");
+		}
+	}
+
+	public static class stored_properties_contain_changed_entries {
+		@Test
+		public void test() throws Exception {
+			Properties properties = new CopyOnWriteProperties(createOriginal());
+			properties.setProperty("first", "another value");
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			properties.store(out, null);
+			Properties loaded = new Properties();
+			loaded.load(new ByteArrayInputStream(out.toByteArray()));
+			assertThat(loaded).isEqualTo(properties);
+		}
+	}
+
+	public static class properties_can_be_based_on_other_copy_on_write_properties {
+		@Test
+		public void test() {
+			Properties outer = new CopyOnWriteProperties(createOriginal());
+			outer.setProperty("first", "another value");
+			Properties inner = new CopyOnWriteProperties(outer);
+			inner.remove("first");
+			assertThat(outer).containsEntry("first", "another value");
+			assertThat(inner).doesNotContainKey("first").hasSize(1);
+		}
+	}
+
+	public static class changes_can_be_applied_to_other_properties {
+		@Test
+		public void test() {
+			CopyOnWriteProperties properties
+				= new CopyOnWriteProperties(createOriginal());
+			assertThat(properties.hasChanges()).isFalse();
+			properties.setProperty("first", "another value");
+			properties.remove("second");
+			properties.setProperty("third", "third value");
+			assertThat(properties.hasChanges()).isTrue();
+			Properties target = createOriginal();
+			target.setProperty("fourth", "fourth value");
+			properties.applyChangesTo(target);
+			Properties expected = new Properties();
+			expected.setProperty("first", "another value");
+			expected.setProperty("third", "third value");
+			expected.setProperty("fourth", "fourth value");
+			assertThat(target).isEqualTo(expected);
+		}
+	}
+}
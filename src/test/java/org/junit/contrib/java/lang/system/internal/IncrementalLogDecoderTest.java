@@ -0,0 +1,52 @@
+package org.junit.contrib.java.lang.system.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+
+@RunWith(Enclosed.class)
+public class IncrementalLogDecoderTest {
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	public static class incomplete_character_at_the_end_of_the_log_is_replaced {
+		@Test
+		public void test() {
+			LogBuffer log = new UnboundedLogBuffer();
+			IncrementalLogDecoder decoder = new IncrementalLogDecoder(UTF_8);
+			log.write(0xc3);
+			assertThat(decoder.decode(log)).isEqualTo("\ufffd");
+		}
+	}
+
+	public static class incomplete_character_is_decoded_when_it_is_completed {
+		@Test
+		public void test() {
+			LogBuffer log = new UnboundedLogBuffer();
+			IncrementalLogDecoder decoder = new IncrementalLogDecoder(UTF_8);
+			log.write(0xc3);
+			decoder.decode(log);
+			log.write(0xa4);
+			assertThat(decoder.decode(log)).isEqualTo("\u00e4");
+		}
+	}
+
+	public static class version_changes_only_if_the_text_changes {
+		@Test
+		public void test() {
+			LogBuffer log = new UnboundedLogBuffer();
+			IncrementalLogDecoder decoder = new IncrementalLogDecoder(UTF_8);
+			log.write('a');
+			decoder.decode(log);
+			long version = decoder.getVersion();
+			decoder.decode(log);
+			assertThat(decoder.getVersion()).isEqualTo(version);
+			log.write('b');
+			decoder.decode(log);
+			assertThat(decoder.getVersion()).isNotEqualTo(version);
+		}
+	}
+}